@@ -0,0 +1,31 @@
+package ru.pionerpixel.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.pionerpixel.exception.UserNotFoundException;
+import ru.pionerpixel.service.AccountService;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountStripingInitializer {
+
+    private final TransferProperties transferProperties;
+    private final AccountService accountService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void applyStriping() {
+        TransferProperties.Striping striping = transferProperties.getStriping();
+        for (Long userId : striping.getHotUserIds()) {
+            try {
+                accountService.enableStriping(userId, striping.getStripeCount());
+                log.info("Счет пользователя {} разбит на {} суб-балансов", userId, striping.getStripeCount());
+            } catch (UserNotFoundException e) {
+                log.warn("Не удалось включить суб-балансы для пользователя {}: {}", userId, e.getMessage());
+            }
+        }
+    }
+}
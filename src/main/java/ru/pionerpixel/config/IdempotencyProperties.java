@@ -0,0 +1,19 @@
+package ru.pionerpixel.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyProperties {
+
+    // redis - общее хранилище для всех экземпляров, in-memory - память процесса (тесты)
+    private String store = "redis";
+
+    // Сколько хранится результат выполненного запроса
+    private long ttlMs = 86400000;
+
+    // Сколько держится резерв ключа для запроса, который еще выполняется.
+    // Не меньше худшего времени перевода с повторами (transfer.retry), иначе повтор клиента выполнит его второй раз
+    private long inProgressTtlMs = 30000;
+}
@@ -0,0 +1,32 @@
+package ru.pionerpixel.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+
+@Data
+@ConfigurationProperties(prefix = "interest")
+public class InterestProperties {
+
+    // Множитель баланса за один период начисления
+    private BigDecimal rate = new BigDecimal("1.1");
+
+    // Баланс не может превысить initialDeposit * capMultiplier
+    private BigDecimal capMultiplier = new BigDecimal("2.07");
+
+    // Число счетов в диапазоне, обрабатываемом в одной транзакции
+    private int chunkSize = 10000;
+
+    // Сколько диапазонов обрабатывается параллельно, не больше размера пула соединений
+    private int parallelism = 4;
+
+    // Период начисления: диапазоны, обработанные в текущем периоде, после перезапуска не повторяются
+    private long periodMs = 30000000;
+
+    // Как часто проверяется, наступил ли следующий период: должно быть заметно меньше periodMs
+    private long pollMs = 60000;
+
+    // Сколько раз диапазон повторяется в пределах одного запуска после ошибки
+    private int rangeAttempts = 3;
+}
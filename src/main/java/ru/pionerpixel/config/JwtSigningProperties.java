@@ -0,0 +1,43 @@
+package ru.pionerpixel.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "jwt.signing")
+public class JwtSigningProperties {
+
+    // HS256 - общий jwt.secret; RS256 и EdDSA - пара ключей, публичные ключи публикуются в JWKS
+    private Algorithm algorithm = Algorithm.HS256;
+
+    // kid ключа, которым подписываются новые токены; пусто - первый ключ с приватной частью
+    private String activeKeyId;
+
+    // Ключи без privateKey только проверяют подпись: так выведенный из ротации ключ
+    // продолжает принимать выпущенные им токены до их истечения
+    private List<Key> keys = new ArrayList<>();
+
+    // На время перехода с HS256: токены без kid проверяются общим jwt.secret.
+    // Включается только вместе со сроком, после acceptLegacyHmacUntil такие токены отклоняются
+    private boolean acceptLegacyHmac = false;
+    private Instant acceptLegacyHmacUntil;
+
+    public enum Algorithm {
+        HS256,
+        RS256,
+        EdDSA
+    }
+
+    @Data
+    public static class Key {
+        private String id;
+        // PKCS#8 в Base64 или PEM
+        private String privateKey;
+        // X.509 SubjectPublicKeyInfo в Base64 или PEM
+        private String publicKey;
+    }
+}
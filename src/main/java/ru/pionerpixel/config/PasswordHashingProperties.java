@@ -0,0 +1,22 @@
+package ru.pionerpixel.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "auth.password-hashing")
+public class PasswordHashingProperties {
+
+    // Стоимость BCrypt (log2 раундов, 4-31); подбирается по PasswordEncoderBenchmark под бюджет задержки входа.
+    // После повышения хэши пересчитываются при входе, массовая миграция не нужна
+    private int bcryptStrength = 10;
+
+    // Потоки для BCrypt; 0 - половина ядер, чтобы хэширование не вытесняло остальной API
+    private int poolSize = 0;
+
+    // Сколько проверок может ждать в очереди; сверх этого вход сразу отклоняется с 429
+    private int queueCapacity = 64;
+
+    // Сколько запрос готов ждать результата, включая время в очереди
+    private long timeoutMs = 2000;
+}
@@ -0,0 +1,27 @@
+package ru.pionerpixel.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "auth.refresh-token")
+public class RefreshTokenProperties {
+
+    // jpa - таблица refresh_tokens, redis - токены с TTL в Redis.
+    // Redis не читает refresh_tokens: при переключении действующие сессии завершаются
+    private String store = "jpa";
+
+    // Время жизни refresh-токена
+    private long ttlMs = 2592000000L;
+
+    private Purge purge = new Purge();
+
+    @Data
+    public static class Purge {
+        // Строк за одно удаление: каждая пачка - отдельная короткая транзакция
+        private int batchSize = 1000;
+        // Ограничение пачек за запуск, остаток удаляется следующим запуском
+        private int maxBatchesPerRun = 100;
+        private long intervalMs = 600000;
+    }
+}
@@ -0,0 +1,27 @@
+package ru.pionerpixel.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "scheduler")
+public class SchedulerProperties {
+
+    // Идентификатор узла в аренде, по умолчанию имя хоста с случайным суффиксом
+    private String nodeId;
+
+    private Lock lock = new Lock();
+
+    @Data
+    public static class Lock {
+
+        // jdbc - таблица scheduler_lock, in-memory - аренда в памяти процесса
+        private String store = "jdbc";
+
+        // Аренда истекает, если узел перестал ее продлевать (завис или упал)
+        private long ttlMs = 60000;
+
+        // Период продления аренды, должен быть заметно меньше ttlMs
+        private long heartbeatMs = 20000;
+    }
+}
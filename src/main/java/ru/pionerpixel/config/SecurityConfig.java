@@ -11,22 +11,39 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import ru.pionerpixel.security.AccessTokenDenylist;
 import ru.pionerpixel.security.JwtAuthenticationFilter;
-import ru.pionerpixel.service.JwtService;
+import ru.pionerpixel.security.VerifiedTokenCache;
+
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
-    private final JwtService jwtService;
+    private static final String BCRYPT_ID = "bcrypt";
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AccessTokenDenylist accessTokenDenylist;
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingProperties passwordHashingProperties) {
+        return delegatingPasswordEncoder(passwordHashingProperties.getBcryptStrength());
+    }
+
+    // Новые хэши пишутся с префиксом {bcrypt} и текущей стоимостью. Хэши без префикса
+    // (созданные до перехода) проверяются BCrypt и считаются устаревшими, поэтому
+    // пересчитываются при следующем успешном входе
+    public static PasswordEncoder delegatingPasswordEncoder(int bcryptStrength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     @Bean
@@ -36,7 +53,7 @@ public class SecurityConfig {
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtService);
+        return new JwtAuthenticationFilter(verifiedTokenCache, accessTokenDenylist);
     }
 
     @Bean
@@ -49,7 +66,8 @@ public class SecurityConfig {
                     "/api/auth/**",
                     "/swagger-ui/**",
                     "/v3/api-docs/**",
-                    "/actuator/**"
+                    "/actuator/**",
+                    "/.well-known/jwks.json"
                 ).permitAll()
                 .anyRequest().authenticated()
             )
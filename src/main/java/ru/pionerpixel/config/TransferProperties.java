@@ -0,0 +1,54 @@
+package ru.pionerpixel.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.pionerpixel.service.TransferMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "transfer")
+public class TransferProperties {
+
+    private TransferMode mode = TransferMode.ATOMIC;
+
+    private final Retry retry = new Retry();
+
+    private final Striping striping = new Striping();
+
+    private final Ledger ledger = new Ledger();
+
+    @Data
+    public static class Retry {
+        // Общее число попыток, включая первую
+        private int maxAttempts = 3;
+        private long initialBackoffMs = 20;
+        private long maxBackoffMs = 200;
+        // Предел одной попытки вместе с ожиданием блокировок, по истечении транзакция откатывается
+        private long attemptTimeoutMs = 5000;
+
+        // Худшее время перевода со всеми попытками и паузами между ними
+        public long maxDurationMs() {
+            int attempts = Math.max(1, maxAttempts);
+            return attempts * attemptTimeoutMs + (attempts - 1) * maxBackoffMs;
+        }
+    }
+
+    @Data
+    public static class Striping {
+        // Пользователи с большим потоком входящих переводов, их счета разбиваются на суб-балансы
+        private List<Long> hotUserIds = new ArrayList<>();
+        private int stripeCount = 8;
+    }
+
+    @Data
+    public static class Ledger {
+        // true - средства проверяются при записи в журнал, false - только проектором,
+        // и перевод без покрытия отклоняется асинхронно
+        private boolean strict = true;
+        // Сколько записей журнала проектор применяет в одной транзакции
+        private int projectionBatchSize = 500;
+        private long projectionIntervalMs = 200;
+    }
+}
\ No newline at end of file
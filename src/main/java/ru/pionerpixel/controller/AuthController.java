@@ -35,6 +35,7 @@ public class AuthController {
         @ApiResponse(responseCode = "400", description = "Неверные учетные данные или формат запроса"),
         @ApiResponse(responseCode = "401", description = "Не авторизован"),
         @ApiResponse(responseCode = "404", description = "Пользователь не найден"),
+        @ApiResponse(responseCode = "429", description = "Слишком много попыток входа, повторите позже"),
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
     })
     public ResponseEntity<AuthResponseDto> login(@Valid @RequestBody LoginRequestDto request) {
@@ -42,10 +43,9 @@ public class AuthController {
         try {
             AuthResponseDto response = authService.login(
                 request.getEmailOrPhone(),
-                request.getPassword()
+                request.getPassword(),
+                request.getDeviceId()
             );
-            log.info("Сгенерированный access token: {}", response.getAccessToken());
-            log.info("Сгенерированный refresh token: {}", response.getRefreshToken());
             return ResponseEntity.ok(response);
         } catch (BadCredentialsException e) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Неверные учетные данные");
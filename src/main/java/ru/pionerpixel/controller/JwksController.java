@@ -0,0 +1,30 @@
+package ru.pionerpixel.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.pionerpixel.service.JwtService;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Ключи JWT", description = "Публичные ключи для проверки токенов")
+public class JwksController {
+
+    private final JwtService jwtService;
+
+    @GetMapping("/.well-known/jwks.json")
+    @Operation(summary = "JWK Set", description = "Публичные ключи подписи access-токенов для локальной проверки другими сервисами")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        // Ключи меняются только при ротации, поэтому другие сервисы могут кэшировать ответ
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+            .body(jwtService.publicJwks());
+    }
+}
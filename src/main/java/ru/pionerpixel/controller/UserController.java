@@ -10,26 +10,40 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import ru.pionerpixel.dto.transfer.BatchTransferItemResultDto;
+import ru.pionerpixel.dto.transfer.BatchTransferRequestDto;
+import ru.pionerpixel.dto.transfer.BatchTransferResponseDto;
+import ru.pionerpixel.dto.transfer.TransferHistoryPageDto;
 import ru.pionerpixel.dto.transfer.TransferRequestDto;
 import ru.pionerpixel.dto.transfer.TransferResponseDto;
 import ru.pionerpixel.dto.user.UserEmailsUpdateDto;
 import ru.pionerpixel.dto.user.UserResponseDto;
+import ru.pionerpixel.dto.user.UserSearchCursorPageDto;
 import ru.pionerpixel.dto.user.UserUpdateDto;
 import ru.pionerpixel.exception.ForbiddenOperationException;
-import ru.pionerpixel.mapper.UserMapper;
 import ru.pionerpixel.service.AccountService;
-import ru.pionerpixel.service.JwtService;
+import ru.pionerpixel.service.AuthService;
+import ru.pionerpixel.service.IdempotencyService;
+import ru.pionerpixel.service.NameMatchMode;
+import ru.pionerpixel.service.SearchPagingMode;
+import ru.pionerpixel.service.TransferHistoryFilter;
+import ru.pionerpixel.service.TransferHistoryService;
+import ru.pionerpixel.service.TransferOutcome;
+import ru.pionerpixel.service.UserSearchFilter;
 import ru.pionerpixel.service.UserService;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -38,9 +52,10 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
-    private final UserMapper userMapper;
-    private final JwtService jwtService;
     private final AccountService accountService;
+    private final IdempotencyService idempotencyService;
+    private final TransferHistoryService transferHistoryService;
+    private final AuthService authService;
 
     @GetMapping
     @Operation(summary = "Поиск пользователей", description = "Поиск пользователей с фильтрами и пагинацией")
@@ -50,36 +65,60 @@ public class UserController {
         @ApiResponse(responseCode = "401", description = "Не авторизован"),
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
     })
-    public ResponseEntity<Page<UserResponseDto>> searchUsers(
-        @RequestHeader("Authorization") String token,
+    public ResponseEntity<Slice<UserResponseDto>> searchUsers(
         @RequestParam(required = false) String name,
+        @Parameter(description = "Сравнение имени: PREFIX - по началу, CONTAINS - по подстроке")
+        @RequestParam(defaultValue = "PREFIX") NameMatchMode nameMatch,
         @RequestParam(required = false) String email,
         @RequestParam(required = false) String phone,
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateOfBirth,
+        @Parameter(description = "Пагинация: EXACT - точный totalElements, SLICE - без totalElements, " +
+            "ESTIMATED - totalElements по оценке планировщика, KEYSET - курсорная (см. cursor)")
+        @RequestParam(defaultValue = "EXACT") SearchPagingMode paging,
         Pageable pageable
     ) {
-        if (token == null || !token.startsWith("Bearer ")) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Неверный токен");
-        }
+        log.info("Поиск пользователей с фильтрами - имя: {} ({}), email: {}, телефон: {}, дата рождения: {}, пагинация: {}",
+            name, nameMatch, email, phone, dateOfBirth, paging);
 
-        try {
-            jwtService.validateToken(token.replace("Bearer ", ""));
+        Slice<UserResponseDto> responseDtoPage = userService.searchUsers(
+            new UserSearchFilter(name, nameMatch, email, phone, dateOfBirth),
+            paging,
+            pageable
+        );
 
-            log.info("Поиск пользователей с фильтрами - имя: {}, email: {}, телефон: {}, дата рождения: {}",
-                name, email, phone, dateOfBirth);
+        return ResponseEntity.ok(responseDtoPage);
+    }
 
-            Page<UserResponseDto> responseDtoPage = userService.searchUsers(
-                name,
-                email,
-                phone,
-                dateOfBirth,
-                pageable
-            ).map(userMapper::toDto);
+    @GetMapping(params = "paging=KEYSET")
+    @Operation(summary = "Поиск пользователей с курсорной пагинацией",
+        description = "Поиск с теми же фильтрами; следующая страница запрашивается по nextCursor, " +
+            "сортировка только по id, name или dateOfBirth")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Страница пользователей"),
+        @ApiResponse(responseCode = "400", description = "Неверный курсор, сортировка или параметры запроса"),
+        @ApiResponse(responseCode = "401", description = "Не авторизован")
+    })
+    public ResponseEntity<UserSearchCursorPageDto> searchUsersByCursor(
+        @RequestParam(required = false) String name,
+        @RequestParam(defaultValue = "PREFIX") NameMatchMode nameMatch,
+        @RequestParam(required = false) String email,
+        @RequestParam(required = false) String phone,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateOfBirth,
+        @Parameter(description = "Курсор из nextCursor предыдущей страницы")
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit,
+        @Parameter(description = "Сортировка: id, name или dateOfBirth, например name,desc")
+        Sort sort
+    ) {
+        log.info("Поиск пользователей по курсору - имя: {} ({}), email: {}, телефон: {}, дата рождения: {}, сортировка: {}",
+            name, nameMatch, email, phone, dateOfBirth, sort);
 
-            return ResponseEntity.ok(responseDtoPage);
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Неверный токен");
-        }
+        return ResponseEntity.ok(userService.searchUsersByCursor(
+            new UserSearchFilter(name, nameMatch, email, phone, dateOfBirth),
+            sort,
+            cursor,
+            limit
+        ));
     }
 
     @PostMapping("/transfer")
@@ -90,27 +129,125 @@ public class UserController {
         @ApiResponse(responseCode = "401", description = "Не авторизован"),
         @ApiResponse(responseCode = "403", description = "Запрещено"),
         @ApiResponse(responseCode = "404", description = "Пользователь не найден"),
+        @ApiResponse(responseCode = "409", description = "Idempotency-Key использован для другого перевода или перевод еще выполняется"),
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
     })
     public ResponseEntity<TransferResponseDto> transferMoney(
-        @RequestHeader("Authorization") String token,
+        @Parameter(hidden = true) @AuthenticationPrincipal Long fromUserId,
+        @Parameter(description = "Ключ идемпотентности: повтор с тем же ключом возвращает результат первого перевода")
+        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
         @RequestBody @Valid TransferRequestDto transferRequestDto
     ) {
-        String cleanToken = token.replace("Bearer ", "");
-        Long fromUserId = jwtService.extractUserId(cleanToken);
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(transfer(fromUserId, transferRequestDto));
+        }
+        return ResponseEntity.ok(idempotencyService.executeTransfer(
+            fromUserId,
+            idempotencyKey,
+            transferRequestDto,
+            () -> transfer(fromUserId, transferRequestDto)
+        ));
+    }
 
+    private TransferResponseDto transfer(Long fromUserId, TransferRequestDto transferRequestDto) {
         accountService.transferMoney(
             fromUserId,
             transferRequestDto.getRecipientId(),
             transferRequestDto.getAmount()
         );
 
-        return ResponseEntity.ok(new TransferResponseDto(
+        return new TransferResponseDto(
             "Перевод успешно завершен",
             LocalDateTime.now()
+        );
+    }
+
+    @PostMapping("/transfers/batch")
+    @Operation(summary = "Пакетный перевод денег", description = "Несколько переводов от текущего пользователя в одной транзакции")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Пакет обработан, результат указан для каждого перевода"),
+        @ApiResponse(responseCode = "400", description = "Неверный формат пакета"),
+        @ApiResponse(responseCode = "401", description = "Не авторизован"),
+        @ApiResponse(responseCode = "404", description = "Отправитель не найден"),
+        @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    })
+    public ResponseEntity<BatchTransferResponseDto> transferMoneyBatch(
+        @Parameter(hidden = true) @AuthenticationPrincipal Long fromUserId,
+        @RequestBody @Valid BatchTransferRequestDto batchRequestDto
+    ) {
+        List<BatchTransferItemResultDto> results = accountService.transferBatch(
+            fromUserId,
+            batchRequestDto.getTransfers()
+        );
+        int completed = (int) results.stream()
+            .filter(result -> result.getStatus() == TransferOutcome.COMPLETED)
+            .count();
+
+        return ResponseEntity.ok(new BatchTransferResponseDto(
+            completed,
+            results.size() - completed,
+            results,
+            LocalDateTime.now()
+        ));
+    }
+
+    @GetMapping("/{userId}/transfers")
+    @Operation(summary = "История переводов", description = "Входящие и исходящие переводы пользователя от новых к старым с курсорной пагинацией")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Страница истории переводов"),
+        @ApiResponse(responseCode = "400", description = "Неверный курсор или параметры фильтра"),
+        @ApiResponse(responseCode = "401", description = "Не авторизован"),
+        @ApiResponse(responseCode = "403", description = "Запрещенная операция")
+    })
+    public ResponseEntity<TransferHistoryPageDto> getTransferHistory(
+        @Parameter(hidden = true) @AuthenticationPrincipal Long currentUserId,
+        @PathVariable Long userId,
+        @Parameter(description = "Курсор из nextCursor предыдущей страницы")
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit,
+        @Parameter(description = "Начало периода с часовым поясом, например 2024-01-01T00:00:00+03:00")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+        @Parameter(description = "Конец периода (не включая) с часовым поясом")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+        @RequestParam(required = false) BigDecimal minAmount,
+        @RequestParam(required = false) BigDecimal maxAmount
+    ) {
+        if (!currentUserId.equals(userId)) {
+            throw new ForbiddenOperationException("Вы можете просматривать только свои переводы");
+        }
+
+        return ResponseEntity.ok(transferHistoryService.getHistory(
+            userId,
+            new TransferHistoryFilter(
+                from == null ? null : from.toInstant(),
+                to == null ? null : to.toInstant(),
+                minAmount,
+                maxAmount
+            ),
+            cursor,
+            limit
         ));
     }
 
+    @PostMapping("/{userId}/sessions/revoke")
+    @Operation(summary = "Выход на всех устройствах", description = "Завершение всех сессий пользователя и отзыв выданных access-токенов")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Сессии завершены"),
+        @ApiResponse(responseCode = "401", description = "Не авторизован"),
+        @ApiResponse(responseCode = "403", description = "Запрещенная операция")
+    })
+    public ResponseEntity<Void> revokeAllSessions(
+        @Parameter(hidden = true) @AuthenticationPrincipal Long currentUserId,
+        @PathVariable Long userId
+    ) {
+        if (!currentUserId.equals(userId)) {
+            throw new ForbiddenOperationException("Вы можете завершать только свои сессии");
+        }
+
+        authService.revokeAllSessions(userId);
+        return ResponseEntity.noContent().build();
+    }
+
     @PutMapping("/{userId}/emails")
     @Operation(summary = "Обновление email пользователя", description = "Замена всех email пользователя на новые")
     @ApiResponses(value = {
@@ -121,11 +258,10 @@ public class UserController {
         @ApiResponse(responseCode = "404", description = "Пользователь не найден")
     })
     public ResponseEntity<UserResponseDto> updateUserEmails(
-        @RequestHeader("Authorization") String token,
+        @Parameter(hidden = true) @AuthenticationPrincipal Long currentUserId,
         @PathVariable Long userId,
         @RequestBody @Valid UserEmailsUpdateDto request
     ) {
-        Long currentUserId = jwtService.extractUserId(token.replace("Bearer ", ""));
         if (!currentUserId.equals(userId)) {
             throw new ForbiddenOperationException("Вы можете обновлять только свои данные");
         }
@@ -147,11 +283,10 @@ public class UserController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
     })
     public ResponseEntity<UserResponseDto> updateUser(
-        @RequestHeader("Authorization") String token,
+        @Parameter(hidden = true) @AuthenticationPrincipal Long currentUserId,
         @PathVariable Long userId,
         @RequestBody @Valid UserUpdateDto updateDto
     ) {
-        Long currentUserId = jwtService.extractUserId(token.replace("Bearer ", ""));
         if (!currentUserId.equals(userId)) {
             throw new ForbiddenOperationException("Вы можете обновлять только свои данные");
         }
@@ -171,11 +306,10 @@ public class UserController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
     })
     public ResponseEntity<UserResponseDto> addEmail(
-        @RequestHeader("Authorization") String token,
+        @Parameter(hidden = true) @AuthenticationPrincipal Long currentUserId,
         @PathVariable Long userId,
         @RequestBody @Email String email
     ) {
-        Long currentUserId = jwtService.extractUserId(token.replace("Bearer ", ""));
         if (!currentUserId.equals(userId)) {
             throw new ForbiddenOperationException("Вы можете обновлять только свои данные");
         }
@@ -195,11 +329,10 @@ public class UserController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
     })
     public ResponseEntity<Void> deleteEmail(
-        @RequestHeader("Authorization") String token,
+        @Parameter(hidden = true) @AuthenticationPrincipal Long currentUserId,
         @PathVariable Long userId,
         @PathVariable Long emailId
     ) {
-        Long currentUserId = jwtService.extractUserId(token.replace("Bearer ", ""));
         if (!currentUserId.equals(userId)) {
             throw new ForbiddenOperationException("Вы можете обновлять только свои данные");
         }
@@ -219,11 +352,10 @@ public class UserController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
     })
     public ResponseEntity<UserResponseDto> addPhone(
-        @RequestHeader("Authorization") String token,
+        @Parameter(hidden = true) @AuthenticationPrincipal Long currentUserId,
         @PathVariable Long userId,
         @RequestBody @Pattern(regexp = "^7\\d{10}$") String phone
     ) {
-        Long currentUserId = jwtService.extractUserId(token.replace("Bearer ", ""));
         if (!currentUserId.equals(userId)) {
             throw new ForbiddenOperationException("Вы можете обновлять только свои данные");
         }
@@ -243,11 +375,10 @@ public class UserController {
         @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
     })
     public ResponseEntity<Void> deletePhone(
-        @RequestHeader("Authorization") String token,
+        @Parameter(hidden = true) @AuthenticationPrincipal Long currentUserId,
         @PathVariable Long userId,
         @PathVariable Long phoneId
     ) {
-        Long currentUserId = jwtService.extractUserId(token.replace("Bearer ", ""));
         if (!currentUserId.equals(userId)) {
             throw new ForbiddenOperationException("Вы можете обновлять только свои данные");
         }
@@ -2,6 +2,7 @@ package ru.pionerpixel.dto.login;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
 @Schema(description = "Данные запроса на вход")
 public class LoginRequestDto {
@@ -13,6 +14,10 @@ public class LoginRequestDto {
     @Schema(description = "Пароль пользователя", example = "securePassword123")
     private String password;
 
+    @Size(max = 64, message = "Идентификатор устройства не длиннее 64 символов")
+    @Schema(description = "Идентификатор устройства: у каждого устройства своя сессия", example = "ios-3f2a9c")
+    private String deviceId;
+
     // Геттеры и сеттеры
     public String getEmailOrPhone() {
         return emailOrPhone;
@@ -29,4 +34,12 @@ public class LoginRequestDto {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package ru.pionerpixel.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.pionerpixel.service.TransferOutcome;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "Результат одного перевода из пакета")
+public class BatchTransferItemResultDto {
+    @Schema(description = "ID получателя", example = "2")
+    private Long recipientId;
+
+    @Schema(description = "Сумма перевода", example = "100.00")
+    private BigDecimal amount;
+
+    @Schema(description = "Статус перевода", example = "COMPLETED")
+    private TransferOutcome status;
+}
@@ -0,0 +1,25 @@
+package ru.pionerpixel.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Schema(description = "Пакет переводов от текущего пользователя")
+public class BatchTransferRequestDto {
+    @NotEmpty(message = "Список переводов не может быть пустым")
+    @Size(max = 1000, message = "Не более 1000 переводов в одном пакете")
+    @Schema(description = "Переводы, применяемые по порядку в одной транзакции")
+    private List<@NotNull @Valid TransferRequestDto> transfers;
+
+    public List<TransferRequestDto> getTransfers() {
+        return transfers;
+    }
+
+    public void setTransfers(List<TransferRequestDto> transfers) {
+        this.transfers = transfers;
+    }
+}
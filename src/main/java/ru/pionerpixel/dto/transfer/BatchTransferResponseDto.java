@@ -0,0 +1,25 @@
+package ru.pionerpixel.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "Ответ на пакетный перевод денежных средств")
+public class BatchTransferResponseDto {
+    @Schema(description = "Число выполненных переводов", example = "98")
+    private int completed;
+
+    @Schema(description = "Число отклоненных переводов", example = "2")
+    private int rejected;
+
+    @Schema(description = "Результаты в порядке переводов в запросе")
+    private List<BatchTransferItemResultDto> results;
+
+    @Schema(description = "Временная метка операции")
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,37 @@
+package ru.pionerpixel.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.pionerpixel.entity.LedgerEntryStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "Перевод в истории пользователя")
+public class TransferHistoryItemDto {
+    @Schema(description = "ID перевода", example = "1024")
+    private Long id;
+
+    @Schema(description = "Направление относительно пользователя", example = "OUTGOING")
+    private Direction direction;
+
+    @Schema(description = "ID второй стороны перевода", example = "2")
+    private Long counterpartyId;
+
+    @Schema(description = "Сумма перевода", example = "100.00")
+    private BigDecimal amount;
+
+    @Schema(description = "Статус перевода", example = "APPLIED")
+    private LedgerEntryStatus status;
+
+    @Schema(description = "Время создания перевода")
+    private Instant createdAt;
+
+    public enum Direction {
+        INCOMING,
+        OUTGOING
+    }
+}
@@ -0,0 +1,18 @@
+package ru.pionerpixel.dto.transfer;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "Страница истории переводов")
+public class TransferHistoryPageDto {
+    @Schema(description = "Переводы от новых к старым")
+    private List<TransferHistoryItemDto> items;
+
+    @Schema(description = "Курсор следующей страницы, null - страниц больше нет", example = "MjAyNC0wMS0wMVQxMjowMHwxMDI0")
+    private String nextCursor;
+}
@@ -3,11 +3,13 @@ package ru.pionerpixel.dto.transfer;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 @Schema(description = "Ответ на операцию перевода денежных средств")
 public class TransferResponseDto {
     @Schema(description = "Сообщение о статусе операции", example = "Перевод успешно выполнен")
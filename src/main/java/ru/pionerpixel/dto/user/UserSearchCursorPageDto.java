@@ -0,0 +1,18 @@
+package ru.pionerpixel.dto.user;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "Страница поиска пользователей с курсорной пагинацией")
+public class UserSearchCursorPageDto {
+    @Schema(description = "Пользователи в порядке сортировки")
+    private List<UserResponseDto> items;
+
+    @Schema(description = "Курсор следующей страницы, null - страниц больше нет", example = "TkFNRXxBU0N8NDJ80JjQstCw0L0")
+    private String nextCursor;
+}
@@ -1,6 +1,7 @@
 package ru.pionerpixel.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Formula;
 import java.math.BigDecimal;
 
 @Entity
@@ -21,6 +22,13 @@ public class Account {
     @Column(nullable = false)
     private BigDecimal initialDeposit;
 
+    // 0 - обычный счет, иначе зачисления распределяются по stripeCount строкам account_stripes
+    @Column(nullable = false)
+    private int stripeCount;
+
+    @Formula("balance + COALESCE((SELECT SUM(s.balance) FROM account_stripes s WHERE s.account_id = id), 0)")
+    private BigDecimal totalBalance;
+
     // Геттеры и сеттеры
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -33,4 +41,12 @@ public class Account {
 
     public BigDecimal getInitialDeposit() { return initialDeposit; }
     public void setInitialDeposit(BigDecimal initialDeposit) { this.initialDeposit = initialDeposit; }
+
+    public int getStripeCount() { return stripeCount; }
+    public void setStripeCount(int stripeCount) { this.stripeCount = stripeCount; }
+
+    public boolean isStriped() { return stripeCount > 0; }
+
+    // Баланс с учетом суб-балансов; для обычного счета совпадает с balance
+    public BigDecimal getTotalBalance() { return isStriped() ? totalBalance : balance; }
 }
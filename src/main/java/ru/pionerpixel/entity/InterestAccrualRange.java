@@ -0,0 +1,53 @@
+package ru.pionerpixel.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "interest_accrual_ranges")
+public class InterestAccrualRange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private long periodKey;
+
+    @Column(nullable = false)
+    private long rangeStart;
+
+    @Column(nullable = false)
+    private long rangeEnd;
+
+    private Instant tickAt;
+
+    private LocalDateTime processedAt;
+
+    private Integer accountsUpdated;
+
+    // Геттеры и сеттеры
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public long getPeriodKey() { return periodKey; }
+    public void setPeriodKey(long periodKey) { this.periodKey = periodKey; }
+
+    public long getRangeStart() { return rangeStart; }
+    public void setRangeStart(long rangeStart) { this.rangeStart = rangeStart; }
+
+    public long getRangeEnd() { return rangeEnd; }
+    public void setRangeEnd(long rangeEnd) { this.rangeEnd = rangeEnd; }
+
+    public Instant getTickAt() { return tickAt; }
+    public void setTickAt(Instant tickAt) { this.tickAt = tickAt; }
+
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+
+    public Integer getAccountsUpdated() { return accountsUpdated; }
+    public void setAccountsUpdated(Integer accountsUpdated) { this.accountsUpdated = accountsUpdated; }
+
+    public boolean isProcessed() { return processedAt != null; }
+}
@@ -0,0 +1,10 @@
+package ru.pionerpixel.entity;
+
+public enum LedgerEntryStatus {
+    // Записан в журнал, балансы еще не изменены
+    PENDING,
+    // Учтен в балансах счетов
+    APPLIED,
+    // Отклонен проектором: у отправителя не хватило средств
+    REJECTED
+}
@@ -11,16 +11,29 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    // Открытый токен хранился до перехода на token_hash; у новых строк null,
+    // старые дозаполняются фоновой задачей и тоже обнуляются
+    @Column(unique = true)
     private String token;
 
-    @OneToOne(fetch = FetchType.LAZY)
+    // SHA-256 токена, 32 байта
+    @Column(name = "token_hash", unique = true)
+    private byte[] tokenHash;
+
+    // Сессий у пользователя столько, сколько устройств: пара (user_id, device_id) уникальна
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    @Column(name = "device_id", nullable = false, length = 64)
+    private String deviceId;
+
     @Column(nullable = false)
     private LocalDateTime expiryDate;
 
+    @Column(name = "last_used_at")
+    private LocalDateTime lastUsedAt;
+
     // Геттеры и сеттеры
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -28,9 +41,18 @@ public class RefreshToken {
     public String getToken() { return token; }
     public void setToken(String token) { this.token = token; }
 
+    public byte[] getTokenHash() { return tokenHash; }
+    public void setTokenHash(byte[] tokenHash) { this.tokenHash = tokenHash; }
+
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
 
+    public String getDeviceId() { return deviceId; }
+    public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+
+    public LocalDateTime getLastUsedAt() { return lastUsedAt; }
+    public void setLastUsedAt(LocalDateTime lastUsedAt) { this.lastUsedAt = lastUsedAt; }
+
     public LocalDateTime getExpiryDate() { return expiryDate; }
     public void setExpiryDate(LocalDateTime expiryDate) { this.expiryDate = expiryDate; }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package ru.pionerpixel.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// Момент последнего "выйти на всех устройствах": access-токены пользователя,
+// выпущенные не позже него, отклоняются
+@Entity
+@Table(name = "session_revocations")
+public class SessionRevocation {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    // Геттеры и сеттеры
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Instant getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(Instant revokedAt) { this.revokedAt = revokedAt; }
+}
@@ -0,0 +1,11 @@
+package ru.pionerpixel.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class AuthThrottledException extends RuntimeException {
+    public AuthThrottledException(String message) {
+        super(message);
+    }
+}
@@ -17,7 +17,7 @@ public interface UserMapper {
 
     @Mapping(target = "emails", source = "emails")
     @Mapping(target = "phones", source = "phones")
-    @Mapping(target = "balance", source = "account.balance")
+    @Mapping(target = "balance", source = "account.totalBalance")
     UserResponseDto toDto(User user);
 
     default List<String> mapEmails(List<EmailData> emails) {
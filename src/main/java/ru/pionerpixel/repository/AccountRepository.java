@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import ru.pionerpixel.entity.Account;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,14 +19,141 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<Account> findByUserId(Long userId);
 
+    @Query("SELECT a FROM Account a WHERE a.user.id IN :userIds")
+    List<Account> findAllByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // ORDER BY id задает единый порядок захвата блокировок для всех переводов
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.user.id IN :userIds ORDER BY a.id")
+    List<Account> findAllByUserIdsForUpdate(@Param("userIds") Collection<Long> userIds);
+
+    // Списание и зачисление одним оператором: 0 - успех, 1 - нет отправителя,
+    // 2 - нет получателя, 3 - недостаточно средств на основном балансе отправителя
+    // за вычетом его непримененных списаний из журнала,
+    // 5 - списание прошло, а зачисление не нашло строки (stripe_count получателя изменился
+    // во время перевода); транзакцию с таким результатом нужно откатить.
+    // Полосатому получателю сумма зачисляется в суб-баланс :stripe % stripe_count,
+    // выполненный перевод записывается в журнал transactions тем же оператором
+    @Query(value = "WITH sender AS (" +
+        "    SELECT id FROM accounts WHERE user_id = :fromUserId" +
+        "), recipient AS (" +
+        "    SELECT id FROM accounts WHERE user_id = :toUserId" +
+        "), debit AS (" +
+        "    UPDATE accounts SET balance = balance - :amount" +
+        "    WHERE user_id = :fromUserId" +
+        "      AND balance - (SELECT COALESCE(SUM(t.amount), 0) FROM transactions t" +
+        "          WHERE t.sender_id = :fromUserId AND t.status = 'PENDING') >= :amount" +
+        "      AND EXISTS (SELECT 1 FROM recipient)" +
+        "    RETURNING id" +
+        "), credit AS (" +
+        "    UPDATE accounts SET balance = balance + :amount" +
+        "    WHERE user_id = :toUserId AND stripe_count = 0 AND EXISTS (SELECT 1 FROM debit)" +
+        "    RETURNING id" +
+        "), stripe_credit AS (" +
+        "    UPDATE account_stripes s SET balance = s.balance + :amount" +
+        "    FROM accounts a" +
+        "    WHERE a.user_id = :toUserId AND a.stripe_count > 0" +
+        "      AND s.account_id = a.id AND s.stripe_no = :stripe % a.stripe_count" +
+        "      AND EXISTS (SELECT 1 FROM debit)" +
+        "    RETURNING s.id" +
+        "), entry AS (" +
+        "    INSERT INTO transactions (sender_id, recipient_id, amount, status, created_at, applied_at)" +
+        "    SELECT :fromUserId, :toUserId, :amount, 'APPLIED', now(), now()" +
+        "    WHERE EXISTS (SELECT 1 FROM credit) OR EXISTS (SELECT 1 FROM stripe_credit)" +
+        "    RETURNING id" +
+        ") " +
+        "SELECT CASE" +
+        "    WHEN NOT EXISTS (SELECT 1 FROM sender) THEN 1" +
+        "    WHEN NOT EXISTS (SELECT 1 FROM recipient) THEN 2" +
+        "    WHEN NOT EXISTS (SELECT 1 FROM debit) THEN 3" +
+        "    WHEN NOT EXISTS (SELECT 1 FROM credit) AND NOT EXISTS (SELECT 1 FROM stripe_credit) THEN 5" +
+        "    ELSE 0 END",
+        nativeQuery = true)
+    int transferAtomically(
+        @Param("fromUserId") Long fromUserId,
+        @Param("toUserId") Long toUserId,
+        @Param("amount") BigDecimal amount,
+        @Param("stripe") int stripe
+    );
+
+    // Переносит суб-балансы полосатого счета в основной баланс и возвращает его,
+    // для обычного счета возвращает null. FOR UPDATE перечитывает суб-балансы после
+    // параллельных зачислений, поэтому ни одно из них не теряется
+    @Query(value = "WITH target AS (" +
+        "    SELECT id FROM accounts WHERE user_id = :userId AND stripe_count > 0" +
+        "), old AS (" +
+        "    SELECT s.id, s.balance FROM account_stripes s JOIN target t ON s.account_id = t.id" +
+        "    WHERE s.balance <> 0 FOR UPDATE OF s" +
+        "), drained AS (" +
+        "    UPDATE account_stripes s SET balance = 0 FROM old WHERE s.id = old.id" +
+        "    RETURNING old.balance" +
+        ") " +
+        "UPDATE accounts a SET balance = a.balance + COALESCE((SELECT SUM(balance) FROM drained), 0) " +
+        "FROM target t WHERE a.id = t.id " +
+        "RETURNING a.balance",
+        nativeQuery = true)
+    BigDecimal consolidateStripes(@Param("userId") Long userId);
+
+    // Зачисление на несколько счетов одним оператором. userIds и amounts - литералы массивов
+    // Postgres ("{1,2}", "{10.00,5.50}"), каждый получатель встречается не более одного раза
+    @Query(value = "WITH credits AS (" +
+        "    SELECT c.user_id, c.amount" +
+        "    FROM unnest(CAST(:userIds AS BIGINT[]), CAST(:amounts AS NUMERIC[])) AS c(user_id, amount)" +
+        "), plain AS (" +
+        "    UPDATE accounts a SET balance = a.balance + c.amount FROM credits c" +
+        "    WHERE a.user_id = c.user_id AND a.stripe_count = 0" +
+        "    RETURNING a.id" +
+        "), striped AS (" +
+        "    UPDATE account_stripes s SET balance = s.balance + c.amount" +
+        "    FROM credits c JOIN accounts a ON a.user_id = c.user_id" +
+        "    WHERE a.stripe_count > 0 AND s.account_id = a.id AND s.stripe_no = :stripe % a.stripe_count" +
+        "    RETURNING s.id" +
+        ") " +
+        "SELECT CAST((SELECT COUNT(*) FROM plain) + (SELECT COUNT(*) FROM striped) AS INT)",
+        nativeQuery = true)
+    int creditAccounts(
+        @Param("userIds") String userIds,
+        @Param("amounts") String amounts,
+        @Param("stripe") int stripe
+    );
+
+    // Проценты начисляются на баланс, но не выше initialDeposit * capMultiplier.
+    // Счета, уже достигшие предела, не переписываются
     @Modifying
-    @Query("UPDATE Account a SET a.balance = a.balance + :amount " +
-        "WHERE a.user.id = :userId AND a.balance + :amount >= 0")
-    int updateBalance(
-        @Param("userId") Long userId,
-        @Param("amount") BigDecimal amount
+    @Query(value = "UPDATE accounts SET balance = LEAST(balance * :rate, initial_deposit * :capMultiplier) " +
+        "WHERE id BETWEEN :fromId AND :toId AND balance < initial_deposit * :capMultiplier",
+        nativeQuery = true)
+    int accrueInterest(
+        @Param("fromId") long fromId,
+        @Param("toId") long toId,
+        @Param("rate") BigDecimal rate,
+        @Param("capMultiplier") BigDecimal capMultiplier
     );
 
+    // Перед начислением процентов суб-балансы полосатых счетов диапазона переносятся в основной баланс
+    @Modifying
+    @Query(value = "WITH old AS (" +
+        "    SELECT s.id, s.account_id, s.balance FROM account_stripes s JOIN accounts a ON a.id = s.account_id" +
+        "    WHERE a.id BETWEEN :fromId AND :toId AND a.stripe_count > 0 AND s.balance <> 0" +
+        "    FOR UPDATE OF s" +
+        "), drained AS (" +
+        "    UPDATE account_stripes s SET balance = 0 FROM old WHERE s.id = old.id" +
+        "    RETURNING old.account_id, old.balance" +
+        "), totals AS (" +
+        "    SELECT account_id, SUM(balance) AS amount FROM drained GROUP BY account_id" +
+        ") " +
+        "UPDATE accounts a SET balance = a.balance + t.amount FROM totals t WHERE a.id = t.account_id",
+        nativeQuery = true)
+    int consolidateStripesInRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    // Keyset-граница диапазона: id последнего из limit счетов после lastId, null - счетов больше нет.
+    // Читает только индекс первичного ключа и не замедляется к концу таблицы, в отличие от OFFSET
+    @Query(value = "SELECT MAX(id) FROM (" +
+        "    SELECT id FROM accounts WHERE id > :lastId ORDER BY id LIMIT :limit" +
+        ") page",
+        nativeQuery = true)
+    Long findRangeUpperBound(@Param("lastId") long lastId, @Param("limit") int limit);
+
     @Query("SELECT a FROM Account a ORDER BY a.id")
     List<Account> findAllWithPagination(Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package ru.pionerpixel.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.pionerpixel.entity.AccountStripe;
+
+import java.math.BigDecimal;
+
+public interface AccountStripeRepository extends JpaRepository<AccountStripe, Long> {
+
+    @Modifying
+    @Query("UPDATE AccountStripe s SET s.balance = s.balance + :amount " +
+        "WHERE s.account.id = :accountId AND s.stripeNo = :stripeNo")
+    int creditStripe(
+        @Param("accountId") Long accountId,
+        @Param("stripeNo") int stripeNo,
+        @Param("amount") BigDecimal amount
+    );
+
+    @Modifying
+    @Query("DELETE FROM AccountStripe s WHERE s.account.id = :accountId")
+    void deleteByAccountId(@Param("accountId") Long accountId);
+}
@@ -6,12 +6,16 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.pionerpixel.entity.EmailData;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface EmailDataRepository extends JpaRepository<EmailData, Long> {
     boolean existsByEmail(String email);
     List<EmailData> findByUserId(Long userId);
 
+    @Query("SELECT e FROM EmailData e WHERE e.user.id IN :userIds ORDER BY e.id")
+    List<EmailData> findAllByUserIds(@Param("userIds") Collection<Long> userIds);
+
     @Modifying
     @Query("DELETE FROM EmailData e WHERE e.id = :id AND e.user.id = :userId")
     int deleteUserEmail(@Param("userId") Long userId, @Param("id") Long emailId);
@@ -0,0 +1,37 @@
+package ru.pionerpixel.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.pionerpixel.entity.InterestAccrualRange;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface InterestAccrualRangeRepository extends JpaRepository<InterestAccrualRange, Long> {
+
+    List<InterestAccrualRange> findByPeriodKeyOrderByRangeStart(long periodKey);
+
+    Optional<InterestAccrualRange> findFirstByOrderByPeriodKeyDesc();
+
+    // Диапазоны прошлых периодов, которые не удалось обработать: повторяются до удаления плана
+    @Query("SELECT r FROM InterestAccrualRange r WHERE r.periodKey < :periodKey AND r.processedAt IS NULL " +
+        "ORDER BY r.periodKey, r.rangeStart")
+    List<InterestAccrualRange> findUnprocessedOlderThan(@Param("periodKey") long periodKey);
+
+    // Захват диапазона: 0 означает, что диапазон уже обработан другим потоком или узлом
+    @Modifying
+    @Query("UPDATE InterestAccrualRange r SET r.processedAt = :processedAt " +
+        "WHERE r.id = :id AND r.processedAt IS NULL")
+    int claim(@Param("id") Long id, @Param("processedAt") LocalDateTime processedAt);
+
+    @Modifying
+    @Query("UPDATE InterestAccrualRange r SET r.accountsUpdated = :accountsUpdated WHERE r.id = :id")
+    void recordResult(@Param("id") Long id, @Param("accountsUpdated") int accountsUpdated);
+
+    @Modifying
+    @Query("DELETE FROM InterestAccrualRange r WHERE r.periodKey < :periodKey AND r.processedAt IS NOT NULL")
+    int deleteProcessedOlderThan(@Param("periodKey") long periodKey);
+}
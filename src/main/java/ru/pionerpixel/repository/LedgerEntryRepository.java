@@ -0,0 +1,78 @@
+package ru.pionerpixel.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.pionerpixel.entity.LedgerEntry;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long>, LedgerEntryRepositoryCustom {
+
+    // Добавляет PENDING-запись одним оператором, коды как у AccountRepository.transferAtomically.
+    // При strict запись добавляется, только если баланс отправителя за вычетом его
+    // необработанных списаний покрывает сумму; вызывающий код заранее блокирует счет отправителя
+    @Query(value = "WITH sender AS (" +
+        "    SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM account_stripes s WHERE s.account_id = a.id), 0)" +
+        "        AS balance" +
+        "    FROM accounts a WHERE a.user_id = :fromUserId" +
+        "), recipient AS (" +
+        "    SELECT id FROM accounts WHERE user_id = :toUserId" +
+        "), pending AS (" +
+        "    SELECT COALESCE(SUM(amount), 0) AS amount FROM transactions" +
+        "    WHERE sender_id = :fromUserId AND status = 'PENDING'" +
+        "), entry AS (" +
+        "    INSERT INTO transactions (sender_id, recipient_id, amount, status, created_at)" +
+        "    SELECT :fromUserId, :toUserId, :amount, 'PENDING', now()" +
+        "    FROM sender, pending" +
+        "    WHERE EXISTS (SELECT 1 FROM recipient)" +
+        "      AND (NOT :strict OR sender.balance - pending.amount >= :amount)" +
+        "    RETURNING id" +
+        ") " +
+        "SELECT CASE" +
+        "    WHEN NOT EXISTS (SELECT 1 FROM sender) THEN 1" +
+        "    WHEN NOT EXISTS (SELECT 1 FROM recipient) THEN 2" +
+        "    WHEN NOT EXISTS (SELECT 1 FROM entry) THEN 3" +
+        "    ELSE 0 END",
+        nativeQuery = true)
+    int recordPending(
+        @Param("fromUserId") Long fromUserId,
+        @Param("toUserId") Long toUserId,
+        @Param("amount") BigDecimal amount,
+        @Param("strict") boolean strict
+    );
+
+    // Сумма принятых, но еще не примененных проектором списаний отправителя
+    @Query(value = "SELECT COALESCE(SUM(amount), 0) FROM transactions WHERE sender_id = :fromUserId AND status = 'PENDING'",
+        nativeQuery = true)
+    BigDecimal sumPendingDebits(@Param("fromUserId") Long fromUserId);
+
+    // Запись выполненных переводов пакета одним оператором, массивы - литералы Postgres
+    // в порядке переводов ("{2,3}", "{10.00,5.50}")
+    @Modifying
+    @Query(value = "INSERT INTO transactions (sender_id, recipient_id, amount, status, created_at, applied_at) " +
+        "SELECT :fromUserId, e.recipient_id, e.amount, 'APPLIED', now(), now() " +
+        "FROM unnest(CAST(:recipientIds AS BIGINT[]), CAST(:amounts AS NUMERIC[])) " +
+        "    WITH ORDINALITY AS e(recipient_id, amount, position) " +
+        "ORDER BY e.position",
+        nativeQuery = true)
+    int recordApplied(
+        @Param("fromUserId") Long fromUserId,
+        @Param("recipientIds") String recipientIds,
+        @Param("amounts") String amounts
+    );
+
+    // applied_at по часам базы, как created_at и записи остальных режимов. Статусы записей
+    // сбрасываются в базу до этого оператора
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE transactions SET applied_at = now() WHERE id IN (:ids)", nativeQuery = true)
+    int markProcessedAt(@Param("ids") Collection<Long> ids);
+
+    // SKIP LOCKED позволяет нескольким экземплярам проектора разбирать журнал параллельно
+    @Query(value = "SELECT * FROM transactions WHERE status = 'PENDING' ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+        nativeQuery = true)
+    List<LedgerEntry> lockPendingBatch(@Param("limit") int limit);
+}
@@ -0,0 +1,20 @@
+package ru.pionerpixel.repository;
+
+import ru.pionerpixel.entity.LedgerEntry;
+import ru.pionerpixel.service.TransferHistoryFilter;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface LedgerEntryRepositoryCustom {
+
+    // Входящие и исходящие переводы пользователя от новых к старым, строго после курсора
+    // (afterCreatedAt, afterId); курсор null - с начала истории
+    List<LedgerEntry> findHistory(
+        Long userId,
+        TransferHistoryFilter filter,
+        Instant afterCreatedAt,
+        Long afterId,
+        int limit
+    );
+}
@@ -0,0 +1,71 @@
+package ru.pionerpixel.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import ru.pionerpixel.entity.LedgerEntry;
+import ru.pionerpixel.service.TransferHistoryFilter;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LedgerEntryRepositoryImpl implements LedgerEntryRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Ветки по отправителю и получателю читаются каждая своим покрывающим индексом
+    // (sender_id|recipient_id, created_at DESC, id DESC) и останавливаются после limit строк,
+    // поэтому стоимость страницы не зависит от ее номера и длины истории
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<LedgerEntry> findHistory(
+        Long userId,
+        TransferHistoryFilter filter,
+        Instant afterCreatedAt,
+        Long afterId,
+        int limit
+    ) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", userId);
+        params.put("limit", limit);
+
+        StringBuilder conditions = new StringBuilder();
+        if (afterCreatedAt != null) {
+            conditions.append(" AND (created_at, id) < (:afterCreatedAt, :afterId)");
+            params.put("afterCreatedAt", afterCreatedAt);
+            params.put("afterId", afterId);
+        }
+        if (filter.from() != null) {
+            conditions.append(" AND created_at >= :from");
+            params.put("from", filter.from());
+        }
+        if (filter.to() != null) {
+            conditions.append(" AND created_at < :to");
+            params.put("to", filter.to());
+        }
+        if (filter.minAmount() != null) {
+            conditions.append(" AND amount >= :minAmount");
+            params.put("minAmount", filter.minAmount());
+        }
+        if (filter.maxAmount() != null) {
+            conditions.append(" AND amount <= :maxAmount");
+            params.put("maxAmount", filter.maxAmount());
+        }
+
+        String sql = "SELECT * FROM (" +
+            "    (SELECT * FROM transactions WHERE sender_id = :userId" + conditions +
+            "     ORDER BY created_at DESC, id DESC LIMIT :limit)" +
+            "    UNION ALL" +
+            "    (SELECT * FROM transactions WHERE recipient_id = :userId" + conditions +
+            "     ORDER BY created_at DESC, id DESC LIMIT :limit)" +
+            ") history " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit";
+
+        Query query = entityManager.createNativeQuery(sql, LedgerEntry.class);
+        params.forEach(query::setParameter);
+        return query.getResultList();
+    }
+}
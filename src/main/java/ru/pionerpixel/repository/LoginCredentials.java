@@ -0,0 +1,9 @@
+package ru.pionerpixel.repository;
+
+// Проекция для входа: только id и хэш пароля, без гидрации User и его коллекций
+public interface LoginCredentials {
+
+    Long getId();
+
+    String getPassword();
+}
@@ -6,11 +6,15 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.pionerpixel.entity.PhoneData;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface PhoneDataRepository extends JpaRepository<PhoneData, Long> {
     boolean existsByPhone(String phone);
 
+    @Query("SELECT p FROM PhoneData p WHERE p.user.id IN :userIds ORDER BY p.id")
+    List<PhoneData> findAllByUserIds(@Param("userIds") Collection<Long> userIds);
+
     @Modifying
     @Query("DELETE FROM PhoneData p WHERE p.user.id = :userId")
     void deleteByUserId(@Param("userId") Long userId);
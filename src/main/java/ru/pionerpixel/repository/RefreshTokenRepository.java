@@ -1,12 +1,67 @@
 package ru.pionerpixel.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.pionerpixel.entity.RefreshToken;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
     Optional<RefreshToken> findByToken(String token);
-    Optional<RefreshToken> findByUserId(Long userId);
-    void deleteByUserId(Long userId);
-}
\ No newline at end of file
+    Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
+
+    // Вход с устройства заменяет его сессию на месте по уникальному индексу (user_id, device_id)
+    @Modifying
+    @Query(value = "INSERT INTO refresh_tokens (user_id, device_id, token_hash, expiry_date, last_used_at) " +
+        "VALUES (:userId, :deviceId, :tokenHash, :expiryDate, :now) " +
+        "ON CONFLICT (user_id, device_id) DO UPDATE SET token_hash = EXCLUDED.token_hash, token = NULL, " +
+        "    expiry_date = EXCLUDED.expiry_date, last_used_at = EXCLUDED.last_used_at",
+        nativeQuery = true)
+    int upsertSession(
+        @Param("userId") Long userId,
+        @Param("deviceId") String deviceId,
+        @Param("tokenHash") byte[] tokenHash,
+        @Param("expiryDate") LocalDateTime expiryDate,
+        @Param("now") LocalDateTime now
+    );
+
+    // Сравнение с прежним токеном делает обновление условным: из параллельных
+    // запросов с одним токеном строку меняет только первый
+    @Modifying
+    @Query(value = "UPDATE refresh_tokens SET token_hash = :newHash, token = NULL, " +
+        "    expiry_date = :expiryDate, last_used_at = :now " +
+        "WHERE id = :id AND expiry_date >= :now AND (token_hash = :oldHash OR token = :oldToken)",
+        nativeQuery = true)
+    int rotateSession(
+        @Param("id") Long id,
+        @Param("oldHash") byte[] oldHash,
+        @Param("oldToken") String oldToken,
+        @Param("newHash") byte[] newHash,
+        @Param("expiryDate") LocalDateTime expiryDate,
+        @Param("now") LocalDateTime now
+    );
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+
+    // Пачка истекших токенов по индексу expiry_date. SKIP LOCKED пропускает строки, занятые входом
+    // или обновлением токена, поэтому очистка не ждет их и не задерживает их сама
+    @Modifying
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN (" +
+        "SELECT id FROM refresh_tokens WHERE expiry_date < :now " +
+        "ORDER BY expiry_date LIMIT :limit FOR UPDATE SKIP LOCKED)",
+        nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Дозаполняет token_hash у строк, записанных до перехода, и убирает из них открытый токен
+    @Modifying
+    @Query(value = "UPDATE refresh_tokens SET token_hash = sha256(convert_to(token, 'UTF8')), token = NULL " +
+        "WHERE id IN (SELECT id FROM refresh_tokens WHERE token_hash IS NULL " +
+        "LIMIT :limit FOR UPDATE SKIP LOCKED)",
+        nativeQuery = true)
+    int backfillTokenHashBatch(@Param("limit") int limit);
+}
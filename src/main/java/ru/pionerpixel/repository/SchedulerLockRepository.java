@@ -0,0 +1,33 @@
+package ru.pionerpixel.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.pionerpixel.entity.SchedulerLockEntry;
+
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLockEntry, String> {
+
+    // Время аренды считается по часам базы, чтобы расхождение часов узлов не продлевало чужую аренду.
+    // 1 - аренда получена (свободна, истекла или уже наша), 0 - ее держит другой узел
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_lock (name, locked_by, locked_at, locked_until) " +
+        "VALUES (:name, :owner, now(), now() + :ttlMs * INTERVAL '1 millisecond') " +
+        "ON CONFLICT (name) DO UPDATE SET locked_by = EXCLUDED.locked_by, " +
+        "    locked_at = EXCLUDED.locked_at, locked_until = EXCLUDED.locked_until " +
+        "WHERE scheduler_lock.locked_until < now() OR scheduler_lock.locked_by = EXCLUDED.locked_by",
+        nativeQuery = true)
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner, @Param("ttlMs") long ttlMs);
+
+    @Modifying
+    @Query(value = "UPDATE scheduler_lock SET locked_until = now() + :ttlMs * INTERVAL '1 millisecond' " +
+        "WHERE name = :name AND locked_by = :owner AND locked_until >= now()",
+        nativeQuery = true)
+    int extend(@Param("name") String name, @Param("owner") String owner, @Param("ttlMs") long ttlMs);
+
+    // Аренда не удаляется, а истекает немедленно: строка остается для следующего захвата
+    @Modifying
+    @Query(value = "UPDATE scheduler_lock SET locked_until = now() WHERE name = :name AND locked_by = :owner",
+        nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
@@ -0,0 +1,26 @@
+package ru.pionerpixel.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.pionerpixel.entity.SessionRevocation;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SessionRevocationRepository extends JpaRepository<SessionRevocation, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO session_revocations (user_id, revoked_at) VALUES (:userId, :revokedAt) " +
+        "ON CONFLICT (user_id) DO UPDATE SET revoked_at = GREATEST(session_revocations.revoked_at, EXCLUDED.revoked_at)",
+        nativeQuery = true)
+    int upsert(@Param("userId") Long userId, @Param("revokedAt") Instant revokedAt);
+
+    // Более ранние отзывы уже не действуют: все затронутые ими access-токены истекли
+    List<SessionRevocation> findByRevokedAtAfter(Instant since);
+
+    @Modifying
+    @Query("DELETE FROM SessionRevocation r WHERE r.revokedAt < :before")
+    int deleteOlderThan(@Param("before") Instant before);
+}
@@ -1,16 +1,15 @@
 package ru.pionerpixel.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import ru.pionerpixel.entity.User;
 
-import java.time.LocalDate;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
     // Добавляем новые методы
     default Optional<User> findByEmailOrPhone(String emailOrPhone) {
@@ -21,27 +20,31 @@ public interface UserRepository extends JpaRepository<User, Long> {
         return findByPhonesPhone(emailOrPhone);
     }
 
+    // Логин с '@' может быть только email, иначе это телефон: один запрос по уникальному индексу вместо двух
+    default Optional<LoginCredentials> findLoginCredentials(String emailOrPhone) {
+        return emailOrPhone.indexOf('@') >= 0
+            ? findLoginCredentialsByEmail(emailOrPhone)
+            : findLoginCredentialsByPhone(emailOrPhone);
+    }
+
+    @Query("SELECT u.id AS id, u.password AS password FROM EmailData e JOIN e.user u WHERE e.email = :email")
+    Optional<LoginCredentials> findLoginCredentialsByEmail(@Param("email") String email);
+
+    @Query("SELECT u.id AS id, u.password AS password FROM PhoneData p JOIN p.user u WHERE p.phone = :phone")
+    Optional<LoginCredentials> findLoginCredentialsByPhone(@Param("phone") String phone);
+
+    // Условие на прежний хэш не дает затереть пароль, измененный параллельно
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
     @Query("SELECT u FROM User u JOIN u.emails e WHERE e.email = :email")
     Optional<User> findByEmailsEmail(@Param("email") String email);
 
     @Query("SELECT u FROM User u JOIN u.phones p WHERE p.phone = :phone")
     Optional<User> findByPhonesPhone(@Param("phone") String phone);
 
-    @Query("SELECT DISTINCT u FROM User u " +
-        "LEFT JOIN u.emails e " +
-        "LEFT JOIN u.phones p " +
-        "WHERE (:name IS NULL OR LOWER(u.name) LIKE LOWER(CONCAT(:name, '%'))) " +
-        "AND (:email IS NULL OR e.email = :email) " +
-        "AND (:phone IS NULL OR p.phone = :phone) " +
-        "AND (:dateOfBirth IS NULL OR u.dateOfBirth > :dateOfBirth)")
-    Page<User> searchUsers(
-        @Param("name") String name,
-        @Param("email") String email,
-        @Param("phone") String phone,
-        @Param("dateOfBirth") LocalDate dateOfBirth,
-        Pageable pageable
-    );
-
     @Query("SELECT CASE WHEN COUNT(e) > 0 THEN true ELSE false END FROM EmailData e WHERE e.email = :email")
     boolean existsByEmail(@Param("email") String email);
 
@@ -0,0 +1,33 @@
+package ru.pionerpixel.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import ru.pionerpixel.service.UserSearchCursor;
+import ru.pionerpixel.service.UserSearchFilter;
+import ru.pionerpixel.service.UserSortKey;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+    // Первая фаза поиска: страница строк users без коллекций; email, телефоны и балансы
+    // страницы дочитываются пакетными запросами
+    Page<UserSearchRow> searchUsers(UserSearchFilter filter, Pageable pageable);
+
+    // Тот же поиск без COUNT: читается size + 1 строка, по ней заполняется hasNext
+    Slice<UserSearchRow> searchUsersSlice(UserSearchFilter filter, Pageable pageable);
+
+    // Оценка числа найденных пользователей по статистике планировщика, без выполнения COUNT
+    long estimateSearchCount(UserSearchFilter filter);
+
+    // Страница поиска в порядке (sortKey, id) строго после курсора; курсор null - с начала
+    List<UserSearchRow> searchUsersAfter(
+        UserSearchFilter filter,
+        UserSortKey sortKey,
+        Sort.Direction direction,
+        UserSearchCursor after,
+        int limit
+    );
+}
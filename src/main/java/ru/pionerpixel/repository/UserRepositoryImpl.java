@@ -0,0 +1,194 @@
+package ru.pionerpixel.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import ru.pionerpixel.entity.User;
+import ru.pionerpixel.service.UserSearchCursor;
+import ru.pionerpixel.service.UserSearchFilter;
+import ru.pionerpixel.service.UserSortKey;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    // Первая строка плана: "... (cost=0.00..1.23 rows=456 width=8)"
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<UserSearchRow> searchUsers(UserSearchFilter filter, Pageable pageable) {
+        List<UserSearchRow> content = findRows(filter, pageable, pageable.isPaged() ? pageable.getPageSize() : null);
+        // Как в Spring Data: COUNT не нужен, если страница неполная и total и так известен
+        return PageableExecutionUtils.getPage(content, pageable, () -> countRows(filter));
+    }
+
+    @Override
+    public Slice<UserSearchRow> searchUsersSlice(UserSearchFilter filter, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(findRows(filter, pageable, null), pageable, false);
+        }
+        List<UserSearchRow> rows = findRows(filter, pageable, pageable.getPageSize() + 1);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    private List<UserSearchRow> findRows(UserSearchFilter filter, Pageable pageable, Integer limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        query.multiselect(user.get("id"), user.get("name"), user.get("dateOfBirth"))
+            .where(UserSearchSpecifications.matching(filter).toPredicate(user, query, cb))
+            .orderBy(QueryUtils.toOrders(pageable.getSort(), user, cb));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (limit != null) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(limit);
+        }
+        return typedQuery.getResultList().stream()
+            .map(row -> (UserSearchRow) new SearchRow(
+                row.get(0, Long.class),
+                row.get(1, String.class),
+                row.get(2, LocalDate.class)
+            ))
+            .toList();
+    }
+
+    private long countRows(UserSearchFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<User> user = query.from(User.class);
+        query.select(cb.count(user))
+            .where(UserSearchSpecifications.matching(filter).toPredicate(user, query, cb));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    // Условия те же, что в UserSearchSpecifications, чтобы оценка соответствовала реальному запросу
+    @Override
+    @SuppressWarnings("unchecked")
+    public long estimateSearchCount(UserSearchFilter filter) {
+        Map<String, Object> params = new HashMap<>();
+        String sql = "EXPLAIN SELECT u.id FROM users u WHERE TRUE" + filterConditions(filter, params);
+
+        Query query = entityManager.createNativeQuery(sql);
+        params.forEach(query::setParameter);
+        List<Object> plan = query.getResultList();
+        return plan.isEmpty() ? 0 : parsePlanRows(plan.get(0).toString());
+    }
+
+    // Условие (ключ, id) > (ключ курсора, id курсора) и ORDER BY по тем же столбцам читаются
+    // индексом (name, id), (date_of_birth, id) или первичным ключом с позиции курсора,
+    // поэтому стоимость страницы не зависит от ее глубины
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<UserSearchRow> searchUsersAfter(
+        UserSearchFilter filter,
+        UserSortKey sortKey,
+        Sort.Direction direction,
+        UserSearchCursor after,
+        int limit
+    ) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("limit", limit);
+        StringBuilder conditions = new StringBuilder(filterConditions(filter, params));
+
+        String column = switch (sortKey) {
+            case ID -> null;
+            case NAME -> "u.name";
+            case DATE_OF_BIRTH -> "u.date_of_birth";
+        };
+        String comparison = direction.isAscending() ? ">" : "<";
+        String order = direction.isAscending() ? "ASC" : "DESC";
+
+        if (after != null) {
+            if (column == null) {
+                conditions.append(" AND u.id ").append(comparison).append(" :afterId");
+            } else {
+                conditions.append(" AND (").append(column).append(", u.id) ").append(comparison)
+                    .append(" (:afterValue, :afterId)");
+                params.put("afterValue", after.value());
+            }
+            params.put("afterId", after.id());
+        }
+
+        String sql = "SELECT u.id, u.name, u.date_of_birth FROM users u WHERE TRUE" + conditions +
+            " ORDER BY " + (column == null ? "" : column + " " + order + ", ") + "u.id " + order +
+            " LIMIT :limit";
+
+        Query query = entityManager.createNativeQuery(sql);
+        params.forEach(query::setParameter);
+        List<Object[]> rows = query.getResultList();
+        return rows.stream()
+            .map(row -> (UserSearchRow) new SearchRow(
+                ((Number) row[0]).longValue(),
+                (String) row[1],
+                toLocalDate(row[2])
+            ))
+            .toList();
+    }
+
+    // SQL-вариант UserSearchSpecifications.matching для запросов, которые не выразить через Criteria:
+    // EXPLAIN и сравнение строк (ключ, id) > (...) для курсора
+    private static String filterConditions(UserSearchFilter filter, Map<String, Object> params) {
+        StringBuilder conditions = new StringBuilder();
+        String namePattern = filter.namePattern();
+        if (namePattern != null) {
+            conditions.append(" AND lower(u.name) LIKE lower(:namePattern) ESCAPE '!'");
+            params.put("namePattern", namePattern);
+        }
+        if (filter.email() != null) {
+            conditions.append(" AND EXISTS (SELECT 1 FROM email_data e WHERE e.user_id = u.id AND e.email = :email)");
+            params.put("email", filter.email());
+        }
+        if (filter.phone() != null) {
+            conditions.append(" AND EXISTS (SELECT 1 FROM phone_data p WHERE p.user_id = u.id AND p.phone = :phone)");
+            params.put("phone", filter.phone());
+        }
+        if (filter.dateOfBirth() != null) {
+            conditions.append(" AND u.date_of_birth > :dateOfBirth");
+            params.put("dateOfBirth", filter.dateOfBirth());
+        }
+        return conditions.toString();
+    }
+
+    private static long parsePlanRows(String planLine) {
+        Matcher matcher = PLAN_ROWS.matcher(planLine);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+
+    private record SearchRow(Long id, String name, LocalDate dateOfBirth) implements UserSearchRow {
+
+        @Override
+        public Long getId() { return id; }
+
+        @Override
+        public String getName() { return name; }
+
+        @Override
+        public LocalDate getDateOfBirth() { return dateOfBirth; }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.pionerpixel.repository;
+
+import java.time.LocalDate;
+
+// Строка первой фазы поиска: только колонки users. Сущность User не загружается,
+// иначе Hibernate дочитывал бы ее обратную связь @OneToOne со счетом отдельным запросом на строку
+public interface UserSearchRow {
+
+    Long getId();
+
+    String getName();
+
+    LocalDate getDateOfBirth();
+}
@@ -0,0 +1,53 @@
+package ru.pionerpixel.repository;
+
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+import ru.pionerpixel.entity.EmailData;
+import ru.pionerpixel.entity.PhoneData;
+import ru.pionerpixel.entity.User;
+import ru.pionerpixel.service.UserSearchFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class UserSearchSpecifications {
+
+    private UserSearchSpecifications() {
+    }
+
+    // В запрос попадают только заданные фильтры: у Postgres свой план на каждую их комбинацию,
+    // а поиск только по дате рождения сводится к диапазону по индексу (date_of_birth, id).
+    // Email и телефон проверяются через EXISTS, поэтому строки users не размножаются и DISTINCT не нужен
+    public static Specification<User> matching(UserSearchFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            String namePattern = filter.namePattern();
+            if (namePattern != null) {
+                // Выражение совпадает с индексами idx_users_name_lower_prefix и idx_users_name_lower_trgm
+                predicates.add(cb.like(cb.lower(root.get("name")), cb.lower(cb.literal(namePattern)), '!'));
+            }
+            if (filter.email() != null) {
+                Subquery<Long> emails = query.subquery(Long.class);
+                Root<EmailData> email = emails.from(EmailData.class);
+                emails.select(email.get("id"))
+                    .where(cb.equal(email.get("user"), root), cb.equal(email.get("email"), filter.email()));
+                predicates.add(cb.exists(emails));
+            }
+            if (filter.phone() != null) {
+                Subquery<Long> phones = query.subquery(Long.class);
+                Root<PhoneData> phone = phones.from(PhoneData.class);
+                phones.select(phone.get("id"))
+                    .where(cb.equal(phone.get("user"), root), cb.equal(phone.get("phone"), filter.phone()));
+                predicates.add(cb.exists(phones));
+            }
+            if (filter.dateOfBirth() != null) {
+                predicates.add(cb.greaterThan(root.get("dateOfBirth"), filter.dateOfBirth()));
+            }
+
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package ru.pionerpixel.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.pionerpixel.entity.SessionRevocation;
+import ru.pionerpixel.repository.SessionRevocationRepository;
+import ru.pionerpixel.service.JwtService;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Отзыв access-токенов, которые сами по себе действуют до exp. Фильтр проверяет токен по карте
+// в памяти (userId -> момент отзыва) без обращения к базе. Отзывы других экземпляров
+// подтягиваются из session_revocations периодическим опросом
+@Slf4j
+@Component
+public class AccessTokenDenylist {
+
+    private final SessionRevocationRepository sessionRevocationRepository;
+    private final Duration accessTokenLifetime;
+    private final Clock clock;
+    private final Map<Long, Instant> revokedBefore = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AccessTokenDenylist(
+        SessionRevocationRepository sessionRevocationRepository,
+        @Value("${jwt.access-token-expiration}") long accessExpiration
+    ) {
+        this(sessionRevocationRepository, accessExpiration, Clock.systemUTC());
+    }
+
+    public AccessTokenDenylist(SessionRevocationRepository sessionRevocationRepository, long accessExpiration, Clock clock) {
+        this.sessionRevocationRepository = sessionRevocationRepository;
+        this.accessTokenLifetime = Duration.ofMillis(accessExpiration);
+        this.clock = clock;
+    }
+
+    // Время выпуска с точностью до миллисекунды: вход сразу после отзыва дает рабочий токен.
+    // Токены, выпущенные до появления iat_ms, проверяются по iat
+    public boolean isRevoked(Long userId, Claims claims) {
+        Long issuedAtMs = claims.get(JwtService.ISSUED_AT_MS_CLAIM, Long.class);
+        if (issuedAtMs == null) {
+            return isRevoked(userId, claims.getIssuedAt());
+        }
+        Instant revokedAt = revokedBefore.get(userId);
+        return revokedAt != null && !Instant.ofEpochMilli(issuedAtMs).isAfter(revokedAt);
+    }
+
+    // iat в JWT с точностью до секунды, поэтому отклоняется и токен, выпущенный в ту же секунду
+    public boolean isRevoked(Long userId, Date issuedAt) {
+        Instant revokedAt = revokedBefore.get(userId);
+        if (revokedAt == null) {
+            return false;
+        }
+        return issuedAt == null || !issuedAt.toInstant().isAfter(revokedAt.truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    @Transactional
+    public void revoke(Long userId) {
+        Instant now = clock.instant();
+        sessionRevocationRepository.upsert(userId, now);
+        revokedBefore.merge(userId, now, (current, candidate) -> candidate.isAfter(current) ? candidate : current);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.session-revocation.refresh-ms:5000}")
+    @Transactional
+    public void refresh() {
+        Instant horizon = clock.instant().minus(accessTokenLifetime);
+        sessionRevocationRepository.findByRevokedAtAfter(horizon).forEach(revocation ->
+            revokedBefore.merge(revocation.getUserId(), revocation.getRevokedAt(),
+                (current, candidate) -> candidate.isAfter(current) ? candidate : current));
+        // Запись старше времени жизни access-токена уже ничего не отклоняет
+        revokedBefore.values().removeIf(revokedAt -> revokedAt.isBefore(horizon));
+        sessionRevocationRepository.deleteOlderThan(horizon);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.pionerpixel.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -9,17 +10,18 @@ import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
-import ru.pionerpixel.service.JwtService;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import java.io.IOException;
 import java.util.Collections;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AccessTokenDenylist accessTokenDenylist;
 
-    public JwtAuthenticationFilter(JwtService jwtService) {
-        this.jwtService = jwtService;
+    public JwtAuthenticationFilter(VerifiedTokenCache verifiedTokenCache, AccessTokenDenylist accessTokenDenylist) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.accessTokenDenylist = accessTokenDenylist;
     }
 
     @Override
@@ -37,13 +39,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = authHeader.substring(7);
         try {
-            if (jwtService.validateToken(token)) {
-                Long userId = jwtService.extractUserId(token);
-                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                    userId, null, Collections.emptyList()
-                );
-                SecurityContextHolder.getContext().setAuthentication(auth);
+            // Токен разбирается один раз за запрос (или берется из кэша): контроллеры получают
+            // id пользователя как principal, а claims - через details аутентификации
+            Claims claims = verifiedTokenCache.verify(token);
+            Long userId = Long.parseLong(claims.getSubject());
+            // Отзыв проверяется на каждом запросе: кэш проверенных токенов о нем не знает
+            if (accessTokenDenylist.isRevoked(userId, claims)) {
+                response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                response.getWriter().write("{\"error\": \"Token revoked\", \"message\": \"Please log in again\"}");
+                return;
             }
+            UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                userId, null, Collections.emptyList()
+            );
+            auth.setDetails(claims);
+            SecurityContextHolder.getContext().setAuthentication(auth);
         } catch (ExpiredJwtException ex) {
             response.setStatus(HttpStatus.UNAUTHORIZED.value());
             response.getWriter().write("{\"error\": \"Token expired\", \"message\": \"Please refresh your token\"}");
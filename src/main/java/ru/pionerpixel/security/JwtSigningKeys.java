@@ -0,0 +1,107 @@
+package ru.pionerpixel.security;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import ru.pionerpixel.config.JwtSigningProperties;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Асимметричные ключи подписи: активный приватный ключ и все принимаемые публичные ключи по kid
+public class JwtSigningKeys {
+
+    private final JwtSigningProperties.Algorithm algorithm;
+    private final String activeKeyId;
+    private final PrivateKey activePrivateKey;
+    private final Map<String, PublicKey> publicKeys;
+
+    private JwtSigningKeys(
+        JwtSigningProperties.Algorithm algorithm,
+        String activeKeyId,
+        PrivateKey activePrivateKey,
+        Map<String, PublicKey> publicKeys
+    ) {
+        this.algorithm = algorithm;
+        this.activeKeyId = activeKeyId;
+        this.activePrivateKey = activePrivateKey;
+        this.publicKeys = Collections.unmodifiableMap(publicKeys);
+    }
+
+    public static JwtSigningKeys from(JwtSigningProperties properties) {
+        JwtSigningProperties.Algorithm algorithm = properties.getAlgorithm();
+        String keyFactoryAlgorithm = algorithm == JwtSigningProperties.Algorithm.RS256 ? "RSA" : "Ed25519";
+
+        // Временная пара ключей своя у каждого экземпляра и меняется при перезапуске,
+        // поэтому без настроенных ключей приложение не запускается
+        if (properties.getKeys().isEmpty()) {
+            throw new IllegalStateException("Ключи подписи JWT " + algorithm + " не настроены (jwt.signing.keys)");
+        }
+
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(keyFactoryAlgorithm);
+            Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+            Map<String, PrivateKey> privateKeys = new LinkedHashMap<>();
+            for (JwtSigningProperties.Key key : properties.getKeys()) {
+                if (key.getId() == null || key.getId().isBlank() || key.getPublicKey() == null) {
+                    throw new IllegalStateException("У ключа подписи JWT должны быть id и publicKey");
+                }
+                publicKeys.put(key.getId(), keyFactory.generatePublic(new X509EncodedKeySpec(decode(key.getPublicKey()))));
+                if (key.getPrivateKey() != null && !key.getPrivateKey().isBlank()) {
+                    privateKeys.put(key.getId(),
+                        keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decode(key.getPrivateKey()))));
+                }
+            }
+
+            String activeKeyId = properties.getActiveKeyId() != null
+                ? properties.getActiveKeyId()
+                : privateKeys.keySet().stream().findFirst().orElse(null);
+            PrivateKey activePrivateKey = activeKeyId == null ? null : privateKeys.get(activeKeyId);
+            if (activePrivateKey == null) {
+                throw new IllegalStateException("Не найден приватный ключ активного ключа подписи JWT: " + activeKeyId);
+            }
+            return new JwtSigningKeys(algorithm, activeKeyId, activePrivateKey, publicKeys);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Неверный ключ подписи JWT", e);
+        }
+    }
+
+    private static byte[] decode(String key) {
+        String base64 = key.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+
+    public JwtSigningProperties.Algorithm getAlgorithm() { return algorithm; }
+
+    public String getActiveKeyId() { return activeKeyId; }
+
+    public PrivateKey getActivePrivateKey() { return activePrivateKey; }
+
+    public PublicKey findPublicKey(String keyId) {
+        return keyId == null ? null : publicKeys.get(keyId);
+    }
+
+    // Публичная часть в формате JWK Set (RFC 7517) для локальной проверки токенов другими сервисами
+    public Map<String, Object> toJwkSet() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        publicKeys.forEach((keyId, publicKey) -> {
+            Jwk<?> jwk = Jwks.builder()
+                .key(publicKey)
+                .id(keyId)
+                .algorithm(algorithm.name())
+                .publicKeyUse("sig")
+                .build();
+            keys.add(new LinkedHashMap<>(jwk));
+        });
+        return Map.of("keys", keys);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.pionerpixel.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+
+// Выпуск и хэширование refresh-токенов. В хранилищах лежит только SHA-256 токена:
+// утечка базы или Redis не дает действующих токенов
+public final class RefreshTokens {
+
+    private static final int TOKEN_BYTES = 32;
+
+    // Свой генератор на поток: общий SecureRandom (как в UUID.randomUUID) под нагрузкой
+    // становится точкой конкуренции потоков
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(RefreshTokens::newRandom);
+
+    private RefreshTokens() {
+    }
+
+    // 256 случайных бит в Base64url без выравнивания - 43 символа
+    public static String generate() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.get().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // Совпадает с sha256(convert_to(token, 'UTF8')) в Postgres, которым дозаполняются старые строки
+    public static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    public static String hashHex(String token) {
+        return HexFormat.of().formatHex(hash(token));
+    }
+
+    private static SecureRandom newRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ru.pionerpixel.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.pionerpixel.service.JwtService;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Кэш уже проверенных токенов: повторный запрос с тем же токеном не разбирает JWT и не считает HMAC.
+// Запись живет ровно до exp токена, поэтому просроченный токен из кэша не вернется.
+// В переходный период приема токенов без kid запись живет не дольше его конца:
+// иначе такой токен, проверенный перед концом периода, принимался бы еще до своего exp.
+// Ключ - SHA-256 токена, сами токены в памяти не хранятся
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtService jwtService;
+    private final Cache<String, Claims> cache;
+
+    public VerifiedTokenCache(
+        JwtService jwtService,
+        @Value("${jwt.verification-cache.max-size:100000}") long maxSize
+    ) {
+        this.jwtService = jwtService;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new Expiry<String, Claims>() {
+                @Override
+                public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                    return untilExpiration(claims);
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                    return untilExpiration(claims);
+                }
+
+                @Override
+                public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+    }
+
+    // Возвращает claims проверенного токена; ошибки проверки (ExpiredJwtException, JwtException)
+    // пробрасываются как есть и не кэшируются
+    public Claims verify(String token) {
+        return cache.get(hash(token), key -> jwtService.parseClaims(token));
+    }
+
+    // Токены с kid после конца периода проверяются заново один раз, чтобы не разбирать здесь заголовок
+    private long untilExpiration(Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return 0;
+        }
+        long expiresAt = expiration.getTime();
+        Instant legacyHmacUntil = jwtService.getLegacyHmacUntil();
+        if (legacyHmacUntil != null) {
+            expiresAt = Math.min(expiresAt, legacyHmacUntil.toEpochMilli());
+        }
+        return Math.max(0, TimeUnit.MILLISECONDS.toNanos(expiresAt - System.currentTimeMillis()));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
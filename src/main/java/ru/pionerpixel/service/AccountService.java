@@ -1,27 +1,82 @@
 package ru.pionerpixel.service;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.pionerpixel.config.TransferProperties;
+import ru.pionerpixel.dto.transfer.BatchTransferItemResultDto;
+import ru.pionerpixel.dto.transfer.TransferRequestDto;
 import ru.pionerpixel.entity.Account;
+import ru.pionerpixel.entity.AccountStripe;
 import ru.pionerpixel.exception.InsufficientFundsException;
 import ru.pionerpixel.exception.UserNotFoundException;
 import ru.pionerpixel.repository.AccountRepository;
+import ru.pionerpixel.repository.AccountStripeRepository;
+import ru.pionerpixel.repository.LedgerEntryRepository;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class AccountService {
 
+    static final String INTEREST_ACCRUAL_LOCK = "interest-accrual";
+
     private final AccountRepository accountRepository;
+    private final AccountStripeRepository accountStripeRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final InterestAccrualService interestAccrualService;
+    private final LeaderLease leaderLease;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties transferProperties;
+    private final Counter transferRetries;
+    private final Counter transferRetriesExhausted;
 
-    public AccountService(AccountRepository accountRepository) {
+    public AccountService(
+        AccountRepository accountRepository,
+        AccountStripeRepository accountStripeRepository,
+        LedgerEntryRepository ledgerEntryRepository,
+        InterestAccrualService interestAccrualService,
+        LeaderLease leaderLease,
+        PlatformTransactionManager transactionManager,
+        TransferProperties transferProperties,
+        MeterRegistry meterRegistry
+    ) {
         this.accountRepository = accountRepository;
+        this.accountStripeRepository = accountStripeRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.interestAccrualService = interestAccrualService;
+        this.leaderLease = leaderLease;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Попытка не может ждать блокировку дольше, чем держится резерв ключа идемпотентности
+        this.transactionTemplate.setTimeout(
+            (int) Math.max(1, Math.ceilDiv(transferProperties.getRetry().getAttemptTimeoutMs(), 1000)));
+        this.transferProperties = transferProperties;
+        this.transferRetries = Counter.builder("transfer.retries")
+            .description("Повторы перевода после конфликта блокировок или сериализации")
+            .register(meterRegistry);
+        this.transferRetriesExhausted = Counter.builder("transfer.retries.exhausted")
+            .description("Переводы, не выполненные после всех повторов")
+            .register(meterRegistry);
     }
 
-    @Transactional
     public void transferMoney(Long fromUserId, Long toUserId, BigDecimal amount) {
         if (fromUserId.equals(toUserId)) {
             throw new IllegalArgumentException("Нельзя переводить на тот же самый аккаунт");
@@ -31,46 +86,247 @@ public class AccountService {
             throw new IllegalArgumentException("Сумма должна быть положительной");
         }
 
-        Account fromAccount = accountRepository.findByUserId(fromUserId)
+        TransferMode mode = transferProperties.getMode();
+        executeWithRetry(() -> {
+            switch (mode) {
+                case ATOMIC -> transferAtomically(fromUserId, toUserId, amount);
+                case ORDERED -> transferWithOrderedLocks(fromUserId, toUserId, amount);
+                case LEDGER -> recordInLedger(fromUserId, toUserId, amount);
+            }
+            return null;
+        });
+    }
+
+    // Пакет применяется в одной транзакции: одна блокировка всех счетов в порядке id,
+    // одно списание у отправителя и одно групповое зачисление получателям.
+    // Переводы, которые нельзя выполнить, отклоняются по отдельности, не откатывая остальные
+    public List<BatchTransferItemResultDto> transferBatch(Long fromUserId, List<TransferRequestDto> transfers) {
+        return executeWithRetry(() -> applyBatch(fromUserId, transfers));
+    }
+
+    private List<BatchTransferItemResultDto> applyBatch(Long fromUserId, List<TransferRequestDto> transfers) {
+        Set<Long> userIds = new LinkedHashSet<>();
+        userIds.add(fromUserId);
+        transfers.forEach(transfer -> userIds.add(transfer.getRecipientId()));
+
+        Map<Long, Account> accounts = accountRepository.findAllByUserIdsForUpdate(userIds).stream()
+            .collect(Collectors.toMap(account -> account.getUser().getId(), Function.identity()));
+
+        Account fromAccount = accounts.get(fromUserId);
+        if (fromAccount == null) {
+            throw new UserNotFoundException("Отправитель не найден с id: " + fromUserId);
+        }
+
+        // Часть баланса может быть обещана принятым переводам журнала, которые проектор еще не применил,
+        // в том числе после переключения из режима LEDGER. Счет отправителя заблокирован,
+        // поэтому ни проектор, ни строгий recordPending сумму не изменят
+        BigDecimal available = fromAccount.getTotalBalance().subtract(ledgerEntryRepository.sumPendingDebits(fromUserId));
+        BigDecimal debited = BigDecimal.ZERO;
+        Map<Long, BigDecimal> credits = new LinkedHashMap<>();
+        List<TransferRequestDto> completed = new ArrayList<>();
+        List<BatchTransferItemResultDto> results = new ArrayList<>(transfers.size());
+
+        for (TransferRequestDto transfer : transfers) {
+            Long recipientId = transfer.getRecipientId();
+            BigDecimal amount = transfer.getAmount();
+            TransferOutcome outcome;
+
+            if (recipientId.equals(fromUserId) || amount.compareTo(BigDecimal.ZERO) <= 0) {
+                outcome = TransferOutcome.INVALID_REQUEST;
+            } else if (!accounts.containsKey(recipientId)) {
+                outcome = TransferOutcome.RECIPIENT_NOT_FOUND;
+            } else if (available.compareTo(amount) < 0) {
+                outcome = TransferOutcome.INSUFFICIENT_FUNDS;
+            } else {
+                available = available.subtract(amount);
+                debited = debited.add(amount);
+                credits.merge(recipientId, amount, BigDecimal::add);
+                completed.add(transfer);
+                outcome = TransferOutcome.COMPLETED;
+            }
+            results.add(new BatchTransferItemResultDto(recipientId, amount, outcome));
+        }
+
+        if (!credits.isEmpty()) {
+            BigDecimal fromBalance = fromAccount.getBalance();
+            if (fromBalance.compareTo(debited) < 0 && fromAccount.isStriped()) {
+                fromBalance = accountRepository.consolidateStripes(fromUserId);
+            }
+            fromAccount.setBalance(fromBalance.subtract(debited));
+
+            int credited = accountRepository.creditAccounts(
+                toArrayLiteral(credits.keySet()), toArrayLiteral(credits.values()), randomStripe());
+            if (credited != credits.size()) {
+                throw new IllegalStateException("Не удалось зачислить средства всем получателям пакета");
+            }
+            ledgerEntryRepository.recordApplied(
+                fromUserId,
+                toArrayLiteral(completed.stream().map(TransferRequestDto::getRecipientId).toList()),
+                toArrayLiteral(completed.stream().map(TransferRequestDto::getAmount).toList())
+            );
+        }
+        return results;
+    }
+
+    private static String toArrayLiteral(Collection<?> values) {
+        return values.stream()
+            .map(value -> value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString())
+            .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private void transferAtomically(Long fromUserId, Long toUserId, BigDecimal amount) {
+        TransferOutcome outcome = TransferOutcome.fromCode(
+            accountRepository.transferAtomically(fromUserId, toUserId, amount, randomStripe()));
+
+        // У полосатого отправителя часть денег может лежать в суб-балансах
+        if (outcome == TransferOutcome.INSUFFICIENT_FUNDS && accountRepository.consolidateStripes(fromUserId) != null) {
+            outcome = TransferOutcome.fromCode(
+                accountRepository.transferAtomically(fromUserId, toUserId, amount, randomStripe()));
+        }
+
+        switch (outcome) {
+            case SENDER_NOT_FOUND -> throw new UserNotFoundException("Отправитель не найден с id: " + fromUserId);
+            case RECIPIENT_NOT_FOUND -> throw new UserNotFoundException("Получатель не найден с id: " + toUserId);
+            case INSUFFICIENT_FUNDS -> throw new InsufficientFundsException();
+            // Откат отменяет уже выполненное списание, executeWithRetry повторяет перевод
+            case CREDIT_NOT_APPLIED -> throw new ConcurrencyFailureException(
+                "Зачисление получателю " + toUserId + " не выполнено: счет изменился во время перевода");
+            case COMPLETED -> { }
+            default -> throw new IllegalStateException("Неожиданный результат перевода: " + outcome);
+        }
+    }
+
+    // Перевод только добавляет строку в журнал, счета получателей не блокируются.
+    // В строгом режиме блокируется счет отправителя, чтобы его параллельные переводы
+    // проверялись по очереди с учетом еще не примененных списаний
+    private void recordInLedger(Long fromUserId, Long toUserId, BigDecimal amount) {
+        boolean strict = transferProperties.getLedger().isStrict();
+        if (strict && accountRepository.findByUserId(fromUserId).isEmpty()) {
+            throw new UserNotFoundException("Отправитель не найден с id: " + fromUserId);
+        }
+
+        switch (TransferOutcome.fromCode(ledgerEntryRepository.recordPending(fromUserId, toUserId, amount, strict))) {
+            case SENDER_NOT_FOUND -> throw new UserNotFoundException("Отправитель не найден с id: " + fromUserId);
+            case RECIPIENT_NOT_FOUND -> throw new UserNotFoundException("Получатель не найден с id: " + toUserId);
+            case INSUFFICIENT_FUNDS -> throw new InsufficientFundsException();
+            default -> { }
+        }
+    }
+
+    // Оба счета блокируются одним запросом в порядке id, поэтому встречные переводы A->B и B->A
+    // ждут друг друга, а не взаимоблокируются
+    private void transferWithOrderedLocks(Long fromUserId, Long toUserId, BigDecimal amount) {
+        List<Account> locked = accountRepository.findAllByUserIdsForUpdate(List.of(fromUserId, toUserId));
+
+        Account fromAccount = findByUserId(locked, fromUserId)
             .orElseThrow(() -> new UserNotFoundException("Отправитель не найден с id: " + fromUserId));
+        Account toAccount = findByUserId(locked, toUserId)
+            .orElseThrow(() -> new UserNotFoundException("Получатель не найден с id: " + toUserId));
 
-        if (fromAccount.getBalance().compareTo(amount) < 0) {
+        // Непримененные списания из журнала уже обещаны получателям
+        BigDecimal available = fromAccount.getTotalBalance().subtract(ledgerEntryRepository.sumPendingDebits(fromUserId));
+        if (available.compareTo(amount) < 0) {
             throw new InsufficientFundsException();
         }
 
-        int updatedFrom = accountRepository.updateBalance(fromUserId, amount.negate());
-        if (updatedFrom == 0) {
-            throw new InsufficientFundsException();
+        BigDecimal fromBalance = fromAccount.getBalance();
+        if (fromBalance.compareTo(amount) < 0 && fromAccount.isStriped()) {
+            fromBalance = accountRepository.consolidateStripes(fromUserId);
         }
+        fromAccount.setBalance(fromBalance.subtract(amount));
+        credit(toAccount, amount);
+        // Время записи берется из базы, как у остальных режимов: курсор истории упорядочен по одним часам
+        ledgerEntryRepository.recordApplied(fromUserId, toArrayLiteral(List.of(toUserId)), toArrayLiteral(List.of(amount)));
+    }
 
-        int updatedTo = accountRepository.updateBalance(toUserId, amount);
-        if (updatedTo == 0) {
-            accountRepository.updateBalance(fromUserId, amount);
-            throw new IllegalStateException("Не удалось обновить баланс получателя");
+    private void credit(Account account, BigDecimal amount) {
+        if (account.isStriped()) {
+            accountStripeRepository.creditStripe(account.getId(), randomStripe() % account.getStripeCount(), amount);
+        } else {
+            account.setBalance(account.getBalance().add(amount));
         }
     }
 
-    @Scheduled(fixedRate = 30000000)
+    // Случайный суб-баланс размазывает зачисления на горячий счет по нескольким строкам
+    private static int randomStripe() {
+        return ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+    }
+
+    // Переводит счет в полосатый режим с stripeCount суб-балансами (0 - обычный счет).
+    // Текущие суб-балансы предварительно переносятся в основной баланс
     @Transactional
-    public void applyInterest() {
-        int pageSize = 100;
-        int pageNumber = 0;
-        Page<Account> page;
+    public void enableStriping(Long userId, int stripeCount) {
+        if (stripeCount < 0) {
+            throw new IllegalArgumentException("Число суб-балансов не может быть отрицательным");
+        }
 
-        do {
-            Pageable pageable = PageRequest.of(pageNumber, pageSize);
-            page = accountRepository.findAll(pageable);
+        Account account = accountRepository.findAllByUserIdsForUpdate(List.of(userId)).stream()
+            .findFirst()
+            .orElseThrow(() -> new UserNotFoundException("Счет не найден для пользователя с id: " + userId));
 
-            for (Account account : page.getContent()) {
-                BigDecimal maxAllowed = account.getInitialDeposit().multiply(new BigDecimal("2.07"));
-                BigDecimal newBalance = account.getBalance().multiply(new BigDecimal("1.1"));
+        if (account.getStripeCount() == stripeCount) {
+            return;
+        }
 
-                if (newBalance.compareTo(maxAllowed) <= 0) {
-                    account.setBalance(newBalance);
-                    accountRepository.save(account);
+        if (account.isStriped()) {
+            account.setBalance(accountRepository.consolidateStripes(userId));
+            accountStripeRepository.deleteByAccountId(account.getId());
+        }
+
+        List<AccountStripe> stripes = new ArrayList<>();
+        for (int stripeNo = 0; stripeNo < stripeCount; stripeNo++) {
+            AccountStripe stripe = new AccountStripe();
+            stripe.setAccount(account);
+            stripe.setStripeNo(stripeNo);
+            stripe.setBalance(BigDecimal.ZERO);
+            stripes.add(stripe);
+        }
+        accountStripeRepository.saveAll(stripes);
+        account.setStripeCount(stripeCount);
+    }
+
+    private static Optional<Account> findByUserId(List<Account> accounts, Long userId) {
+        return accounts.stream()
+            .filter(account -> account.getUser().getId().equals(userId))
+            .findFirst();
+    }
+
+    // Каждая попытка выполняется в отдельной транзакции: после дедлока или ошибки сериализации
+    // Postgres откатывает транзакцию целиком, и продолжать в ней нельзя
+    private <T> T executeWithRetry(Supplier<T> transfer) {
+        TransferProperties.Retry retry = transferProperties.getRetry();
+        int maxAttempts = Math.max(1, retry.getMaxAttempts());
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> transfer.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    transferRetriesExhausted.increment();
+                    log.error("Перевод не выполнен после {} попыток", attempt, e);
+                    throw e;
                 }
+                transferRetries.increment();
+                log.warn("Конфликт при переводе, попытка {} из {}: {}", attempt, maxAttempts, e.getMessage());
+                backoff(retry, attempt);
             }
-            pageNumber++;
-        } while (page.hasNext());
+        }
+    }
+
+    private static void backoff(TransferProperties.Retry retry, int attempt) {
+        long delay = Math.min(retry.getMaxBackoffMs(), retry.getInitialBackoffMs() << Math.min(attempt - 1, 16));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(delay / 2, delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Перевод прерван во время ожидания повтора", e);
+        }
+    }
+
+    // Таймер срабатывает на каждом экземпляре, начисление выполняет только владелец аренды.
+    // Таймер лишь опрашивает: новый период начинается, когда наступил его плановый момент
+    @Scheduled(fixedDelayString = "${interest.poll-ms:60000}")
+    public void applyInterest() {
+        leaderLease.runIfLeader(INTEREST_ACCRUAL_LOCK, leaseHeld -> interestAccrualService.accrue(leaseHeld));
     }
-}
\ No newline at end of file
+}
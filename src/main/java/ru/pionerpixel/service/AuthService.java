@@ -6,16 +6,14 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import ru.pionerpixel.dto.token.RefreshTokenRequestDto;
-import ru.pionerpixel.entity.RefreshToken;
 import ru.pionerpixel.exception.LoginException;
 import ru.pionerpixel.exception.RefreshTokenException;
 import ru.pionerpixel.exception.UserNotFoundException;
-import ru.pionerpixel.repository.RefreshTokenRepository;
+import ru.pionerpixel.repository.LoginCredentials;
 import ru.pionerpixel.repository.UserRepository;
-import ru.pionerpixel.entity.User;
+import ru.pionerpixel.security.AccessTokenDenylist;
 import ru.pionerpixel.dto.auth.AuthResponseDto;
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -25,45 +23,69 @@ import java.util.Collections;
 @Slf4j
 public class AuthService {
 
+    // Клиенты, не передающие deviceId, делят одну сессию, как до разделения по устройствам
+    public static final String DEFAULT_DEVICE_ID = "default";
+
     private final JwtService jwtService;
     private final UserRepository userRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final RefreshTokenService refreshTokenService;
+    private final AccessTokenDenylist accessTokenDenylist;
 
-    public AuthResponseDto login(String emailOrPhone, String password) {
-        User user = userRepository.findByEmailOrPhone(emailOrPhone)
+    public AuthResponseDto login(String emailOrPhone, String password, String deviceId) {
+        LoginCredentials credentials = userRepository.findLoginCredentials(emailOrPhone)
             .orElseThrow(() -> new UserNotFoundException("Пользователь не найден с email/телефоном: " + emailOrPhone));
 
         log.info("Попытка входа для пользователя: {}", emailOrPhone);
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (!passwordHashingService.matches(password, credentials.getPassword())) {
             log.error("Ошибка аутентификации для пользователя: {}", emailOrPhone);
             throw new BadCredentialsException("Неверный email/телефон или пароль");
         }
 
-        String accessToken = jwtService.generateAccessToken(user.getId());
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
+        rehashIfOutdated(credentials, password);
+
+        String accessToken = jwtService.generateAccessToken(credentials.getId());
+        String refreshToken = refreshTokenService.createRefreshToken(
+            credentials.getId(), deviceId == null || deviceId.isBlank() ? DEFAULT_DEVICE_ID : deviceId);
 
-        return new AuthResponseDto(accessToken, refreshToken.getToken());
+        return new AuthResponseDto(accessToken, refreshToken);
     }
 
-    public AuthResponseDto refreshToken(RefreshTokenRequestDto request) {
+    // Пароль в открытом виде есть только при входе, поэтому хэш со старыми параметрами
+    // пересчитывается здесь. Ошибка пересчета не мешает входу: попытка повторится в следующий раз
+    private void rehashIfOutdated(LoginCredentials credentials, String password) {
+        if (!passwordHashingService.needsRehash(credentials.getPassword())) {
+            return;
+        }
         try {
-            RefreshToken oldToken = refreshTokenService.findByToken(request.getRefreshToken())
-                .orElseThrow(() -> new RefreshTokenException("Неверный refresh-токен"));
-            refreshTokenService.verifyExpiration(oldToken);
-
-            refreshTokenRepository.delete(oldToken);
+            String newHash = passwordHashingService.encode(password);
+            if (userRepository.updatePasswordHash(credentials.getId(), credentials.getPassword(), newHash) > 0) {
+                log.info("Хэш пароля пользователя {} пересчитан с текущими параметрами", credentials.getId());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Не удалось пересчитать хэш пароля пользователя {}", credentials.getId(), e);
+        }
+    }
 
-            User user = oldToken.getUser();
-            String newAccessToken = jwtService.generateAccessToken(user.getId());
-            RefreshToken newRefreshToken = refreshTokenService.createRefreshToken(user); // Новый refresh-токен
+    public AuthResponseDto refreshToken(RefreshTokenRequestDto request) {
+        try {
+            // Новый refresh-токен выдается вместо старого одной атомарной операцией хранилища
+            RefreshTokenService.RotatedRefreshToken rotated = refreshTokenService.rotate(request.getRefreshToken());
+            String newAccessToken = jwtService.generateAccessToken(rotated.userId());
 
-            return new AuthResponseDto(newAccessToken, newRefreshToken.getToken());
+            return new AuthResponseDto(newAccessToken, rotated.token());
         } catch (Exception e) {
             log.error("Ошибка обновления токена", e);
             throw new RefreshTokenException("Неверный или просроченный refresh-токен");
         }
     }
-}
\ No newline at end of file
+
+    // Одна операция хранилища завершает сессии всех устройств, а уже выданные
+    // access-токены отклоняются фильтром до истечения
+    public void revokeAllSessions(Long userId) {
+        refreshTokenService.revokeAll(userId);
+        accessTokenDenylist.revoke(userId);
+        log.info("Все сессии пользователя {} завершены", userId);
+    }
+}
@@ -0,0 +1,11 @@
+package ru.pionerpixel.service;
+
+import ru.pionerpixel.dto.transfer.TransferResponseDto;
+
+// response == null - запрос с этим ключом еще выполняется
+public record IdempotencyEntry(String fingerprint, TransferResponseDto response) {
+
+    public boolean isCompleted() {
+        return response != null;
+    }
+}
@@ -0,0 +1,82 @@
+package ru.pionerpixel.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.pionerpixel.config.IdempotencyProperties;
+import ru.pionerpixel.config.TransferProperties;
+import ru.pionerpixel.dto.transfer.TransferRequestDto;
+import ru.pionerpixel.dto.transfer.TransferResponseDto;
+import ru.pionerpixel.exception.IdempotencyConflictException;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Повтор перевода с тем же Idempotency-Key возвращает сохраненный ответ, не обращаясь к счетам.
+// Сохраняется только успешный результат: после ошибки перевод откатан, и ключ освобождается для повтора
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyStore idempotencyStore;
+    private final IdempotencyProperties idempotencyProperties;
+    private final TransferProperties transferProperties;
+
+    public TransferResponseDto executeTransfer(
+        Long fromUserId,
+        String idempotencyKey,
+        TransferRequestDto request,
+        Supplier<TransferResponseDto> transfer
+    ) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                "Idempotency-Key должен быть непустым и не длиннее " + MAX_KEY_LENGTH + " символов");
+        }
+
+        // Ключи разных пользователей не пересекаются
+        String key = "idempotency:transfer:" + fromUserId + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+
+        // Резерв не должен истечь, пока перевод еще может выполняться с повторами
+        long reservationMs = Math.max(
+            idempotencyProperties.getInProgressTtlMs(), transferProperties.getRetry().maxDurationMs());
+        IdempotencyEntry existing = idempotencyStore.putIfAbsent(
+            key, new IdempotencyEntry(fingerprint, null), Duration.ofMillis(reservationMs));
+        if (existing != null) {
+            if (!existing.fingerprint().equals(fingerprint)) {
+                throw new IdempotencyConflictException("Idempotency-Key уже использован для другого перевода");
+            }
+            if (!existing.isCompleted()) {
+                throw new IdempotencyConflictException("Перевод с этим Idempotency-Key еще выполняется");
+            }
+            log.info("Повтор перевода с Idempotency-Key {} от пользователя {}, возвращен сохраненный ответ",
+                idempotencyKey, fromUserId);
+            return existing.response();
+        }
+
+        TransferResponseDto response;
+        try {
+            response = transfer.get();
+        } catch (RuntimeException e) {
+            idempotencyStore.remove(key);
+            throw e;
+        }
+        // Деньги уже переведены: ошибка хранилища не должна превращать успех в 500,
+        // после которого клиент повторит перевод. Резерв ключа продолжает отклонять повторы до истечения
+        try {
+            idempotencyStore.put(key, new IdempotencyEntry(fingerprint, response),
+                Duration.ofMillis(idempotencyProperties.getTtlMs()));
+        } catch (RuntimeException e) {
+            log.error("Не удалось сохранить ответ для Idempotency-Key {} от пользователя {}",
+                idempotencyKey, fromUserId, e);
+        }
+        return response;
+    }
+
+    private static String fingerprint(TransferRequestDto request) {
+        return request.getRecipientId() + ":" + request.getAmount().stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,15 @@
+package ru.pionerpixel.service;
+
+import java.time.Duration;
+
+// Хранилище ключей идемпотентности. Реализация выбирается свойством idempotency.store
+public interface IdempotencyStore {
+
+    // Атомарно сохраняет entry, если ключа нет. Возвращает null при успехе,
+    // иначе уже сохраненную запись
+    IdempotencyEntry putIfAbsent(String key, IdempotencyEntry entry, Duration ttl);
+
+    void put(String key, IdempotencyEntry entry, Duration ttl);
+
+    void remove(String key);
+}
@@ -0,0 +1,42 @@
+package ru.pionerpixel.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Ключи в памяти процесса: для тестов и запуска в одном экземпляре
+@Component
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "in-memory")
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private record Stored(IdempotencyEntry entry, Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return expiresAt.isBefore(now);
+        }
+    }
+
+    private final Map<String, Stored> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public IdempotencyEntry putIfAbsent(String key, IdempotencyEntry entry, Duration ttl) {
+        Instant now = Instant.now();
+        Stored candidate = new Stored(entry, now.plus(ttl));
+        Stored stored = entries.compute(key, (k, current) ->
+            current == null || current.isExpired(now) ? candidate : current);
+        return stored == candidate ? null : stored.entry();
+    }
+
+    @Override
+    public void put(String key, IdempotencyEntry entry, Duration ttl) {
+        entries.put(key, new Stored(entry, Instant.now().plus(ttl)));
+    }
+
+    @Override
+    public void remove(String key) {
+        entries.remove(key);
+    }
+}
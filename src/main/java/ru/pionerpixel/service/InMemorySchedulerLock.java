@@ -0,0 +1,55 @@
+package ru.pionerpixel.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Аренда в памяти процесса: для тестов и запуска в одном экземпляре
+@Component
+@ConditionalOnProperty(name = "scheduler.lock.store", havingValue = "in-memory")
+public class InMemorySchedulerLock implements SchedulerLock {
+
+    private record Lease(String owner, Instant until) {
+    }
+
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final Clock clock;
+
+    public InMemorySchedulerLock() {
+        this(Clock.systemUTC());
+    }
+
+    public InMemorySchedulerLock(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(String name, String owner, Duration ttl) {
+        Instant now = clock.instant();
+        Lease lease = leases.compute(name, (key, current) ->
+            current == null || current.until().isBefore(now) || current.owner().equals(owner)
+                ? new Lease(owner, now.plus(ttl))
+                : current);
+        return lease.owner().equals(owner);
+    }
+
+    @Override
+    public boolean extend(String name, String owner, Duration ttl) {
+        Instant now = clock.instant();
+        Lease lease = leases.computeIfPresent(name, (key, current) ->
+            current.owner().equals(owner) && !current.until().isBefore(now)
+                ? new Lease(owner, now.plus(ttl))
+                : current);
+        return lease != null && lease.owner().equals(owner) && !lease.until().isBefore(now);
+    }
+
+    @Override
+    public void release(String name, String owner) {
+        leases.computeIfPresent(name, (key, current) -> current.owner().equals(owner) ? null : current);
+    }
+}
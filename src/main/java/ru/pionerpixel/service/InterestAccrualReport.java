@@ -0,0 +1,13 @@
+package ru.pionerpixel.service;
+
+import java.time.Duration;
+
+// rangesSkipped - диапазоны, оставленные следующему запуску после потери аренды
+public record InterestAccrualReport(
+    long accountsUpdated,
+    int rangesProcessed,
+    int rangesFailed,
+    int rangesSkipped,
+    Duration elapsed
+) {
+}
@@ -0,0 +1,213 @@
+package ru.pionerpixel.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.pionerpixel.config.InterestProperties;
+import ru.pionerpixel.entity.InterestAccrualRange;
+import ru.pionerpixel.repository.AccountRepository;
+import ru.pionerpixel.repository.InterestAccrualRangeRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+@Slf4j
+@Service
+public class InterestAccrualService {
+
+    private final AccountRepository accountRepository;
+    private final InterestAccrualRangeRepository rangeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final InterestProperties interestProperties;
+    private final Clock clock;
+
+    @Autowired
+    public InterestAccrualService(
+        AccountRepository accountRepository,
+        InterestAccrualRangeRepository rangeRepository,
+        PlatformTransactionManager transactionManager,
+        InterestProperties interestProperties
+    ) {
+        this(accountRepository, rangeRepository, transactionManager, interestProperties, Clock.systemUTC());
+    }
+
+    public InterestAccrualService(
+        AccountRepository accountRepository,
+        InterestAccrualRangeRepository rangeRepository,
+        PlatformTransactionManager transactionManager,
+        InterestProperties interestProperties,
+        Clock clock
+    ) {
+        this.accountRepository = accountRepository;
+        this.rangeRepository = rangeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.interestProperties = interestProperties;
+        this.clock = clock;
+    }
+
+    // Таблица счетов делится на диапазоны по keyset-границам, диапазоны обрабатываются
+    // параллельно, каждый в своей транзакции. План хранится в interest_accrual_ranges,
+    // поэтому после падения повторный запуск продолжает с необработанных диапазонов,
+    // в том числе оставшихся от прошлых периодов
+    public InterestAccrualReport accrue() {
+        return accrue(() -> true);
+    }
+
+    // leaseHeld проверяется перед каждым диапазоном: после потери аренды новые диапазоны
+    // не начинаются, их обработает узел, перехвативший аренду
+    public InterestAccrualReport accrue(BooleanSupplier leaseHeld) {
+        long started = System.nanoTime();
+
+        List<InterestAccrualRange> pending = planRanges().stream()
+            .filter(range -> !range.isProcessed())
+            .toList();
+
+        AtomicLong accountsUpdated = new AtomicLong();
+        AtomicInteger rangesProcessed = new AtomicInteger();
+        AtomicInteger rangesFailed = new AtomicInteger();
+        AtomicInteger rangesSkipped = new AtomicInteger();
+
+        int parallelism = Math.max(1, interestProperties.getParallelism());
+        try (ExecutorService executor = Executors.newFixedThreadPool(
+            parallelism, Thread.ofVirtual().name("interest-accrual-", 0).factory())) {
+            for (InterestAccrualRange range : pending) {
+                executor.submit(() -> {
+                    if (!leaseHeld.getAsBoolean()) {
+                        rangesSkipped.incrementAndGet();
+                        return;
+                    }
+                    Integer updated;
+                    try {
+                        updated = accrueRangeWithRetry(range, leaseHeld);
+                    } catch (RuntimeException e) {
+                        // Диапазон остается в плане необработанным и повторяется при следующем запуске
+                        rangesFailed.incrementAndGet();
+                        log.error("Ошибка начисления процентов в диапазоне id {}-{} за период {}",
+                            range.getRangeStart(), range.getRangeEnd(), range.getPeriodKey(), e);
+                        return;
+                    }
+                    if (updated != null) {
+                        accountsUpdated.addAndGet(updated);
+                        rangesProcessed.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        InterestAccrualReport report = new InterestAccrualReport(
+            accountsUpdated.get(), rangesProcessed.get(), rangesFailed.get(), rangesSkipped.get(),
+            Duration.ofNanos(System.nanoTime() - started));
+        if (report.rangesSkipped() > 0) {
+            log.warn("Начисление процентов остановлено: аренда потеряна, диапазонов оставлено следующему запуску {}",
+                report.rangesSkipped());
+        }
+        log.info("Начисление процентов завершено: обновлено счетов {}, диапазонов {}, с ошибкой {}, время {} мс",
+            report.accountsUpdated(), report.rangesProcessed(), report.rangesFailed(), report.elapsed().toMillis());
+        return report;
+    }
+
+    // Удаляются только полностью обработанные прошлые периоды: необработанные диапазоны
+    // выполняются в этом запуске вместе с текущим периодом
+    private List<InterestAccrualRange> planRanges() {
+        return transactionTemplate.execute(status -> {
+            Period period = currentPeriod();
+            rangeRepository.deleteProcessedOlderThan(period.key());
+
+            List<InterestAccrualRange> ranges = new ArrayList<>(rangeRepository.findUnprocessedOlderThan(period.key()));
+            if (!ranges.isEmpty()) {
+                log.warn("Повтор начисления процентов за прошлые периоды: необработанных диапазонов {}", ranges.size());
+            }
+
+            List<InterestAccrualRange> existing = rangeRepository.findByPeriodKeyOrderByRangeStart(period.key());
+            if (!existing.isEmpty()) {
+                log.info("Продолжение начисления процентов за период {}: диапазонов в плане {}",
+                    period.key(), existing.size());
+                ranges.addAll(existing);
+                return ranges;
+            }
+
+            int chunkSize = Math.max(1, interestProperties.getChunkSize());
+            List<InterestAccrualRange> planned = new ArrayList<>();
+            long lastId = 0;
+            Long upperBound;
+            while ((upperBound = accountRepository.findRangeUpperBound(lastId, chunkSize)) != null) {
+                InterestAccrualRange range = new InterestAccrualRange();
+                range.setPeriodKey(period.key());
+                range.setTickAt(period.tickAt());
+                range.setRangeStart(lastId + 1);
+                range.setRangeEnd(upperBound);
+                planned.add(range);
+                lastId = upperBound;
+            }
+            ranges.addAll(rangeRepository.saveAll(planned));
+            return ranges;
+        });
+    }
+
+    // Период отсчитывается от планового момента предыдущего, а не от времени запуска узла:
+    // пока следующий момент не наступил, продолжается последний период. После простоя
+    // в несколько периодов начисление выполняется один раз, как и раньше
+    private Period currentPeriod() {
+        long periodMs = Math.max(1, interestProperties.getPeriodMs());
+        Instant now = clock.instant();
+        return rangeRepository.findFirstByOrderByPeriodKeyDesc()
+            .map(latest -> {
+                // У планов, созданных до появления tick_at, ключ - номер периода от эпохи
+                Instant lastTick = latest.getTickAt() != null
+                    ? latest.getTickAt()
+                    : Instant.ofEpochMilli(latest.getPeriodKey() * periodMs);
+                long elapsed = Duration.between(lastTick, now).toMillis();
+                if (elapsed < periodMs) {
+                    return new Period(latest.getPeriodKey(), lastTick);
+                }
+                return new Period(latest.getPeriodKey() + 1, lastTick.plusMillis(elapsed / periodMs * periodMs));
+            })
+            .orElseGet(() -> new Period(Math.floorDiv(now.toEpochMilli(), periodMs), now));
+    }
+
+    // Ошибка откатывает транзакцию диапазона вместе с захватом, поэтому его можно сразу повторить
+    private Integer accrueRangeWithRetry(InterestAccrualRange range, BooleanSupplier leaseHeld) {
+        int attempts = Math.max(1, interestProperties.getRangeAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return accrueRange(range);
+            } catch (RuntimeException e) {
+                if (attempt >= attempts || !leaseHeld.getAsBoolean()) {
+                    throw e;
+                }
+                log.warn("Повтор начисления процентов в диапазоне id {}-{}, попытка {} из {}: {}",
+                    range.getRangeStart(), range.getRangeEnd(), attempt + 1, attempts, e.getMessage());
+            }
+        }
+    }
+
+    // Диапазон захватывается в той же транзакции, что и начисление: либо проценты начислены
+    // и диапазон отмечен, либо откатилось и то, и другое. null - диапазон уже обработан
+    private Integer accrueRange(InterestAccrualRange range) {
+        return transactionTemplate.execute(status -> {
+            if (rangeRepository.claim(range.getId(), LocalDateTime.now()) == 0) {
+                return null;
+            }
+            accountRepository.consolidateStripesInRange(range.getRangeStart(), range.getRangeEnd());
+            int updated = accountRepository.accrueInterest(
+                range.getRangeStart(), range.getRangeEnd(),
+                interestProperties.getRate(), interestProperties.getCapMultiplier());
+            rangeRepository.recordResult(range.getId(), updated);
+            return updated;
+        });
+    }
+
+    private record Period(long key, Instant tickAt) {
+    }
+}
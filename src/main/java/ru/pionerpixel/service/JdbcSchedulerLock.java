@@ -0,0 +1,35 @@
+package ru.pionerpixel.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.pionerpixel.repository.SchedulerLockRepository;
+
+import java.time.Duration;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "scheduler.lock.store", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcSchedulerLock implements SchedulerLock {
+
+    private final SchedulerLockRepository schedulerLockRepository;
+
+    @Override
+    @Transactional
+    public boolean tryAcquire(String name, String owner, Duration ttl) {
+        return schedulerLockRepository.tryAcquire(name, owner, ttl.toMillis()) > 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean extend(String name, String owner, Duration ttl) {
+        return schedulerLockRepository.extend(name, owner, ttl.toMillis()) > 0;
+    }
+
+    @Override
+    @Transactional
+    public void release(String name, String owner) {
+        schedulerLockRepository.release(name, owner);
+    }
+}
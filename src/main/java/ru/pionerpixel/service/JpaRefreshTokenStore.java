@@ -0,0 +1,56 @@
+package ru.pionerpixel.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.pionerpixel.entity.RefreshToken;
+import ru.pionerpixel.repository.RefreshTokenRepository;
+import ru.pionerpixel.security.RefreshTokens;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+// Хранилище по умолчанию: сессии в таблице refresh_tokens, одна строка на устройство.
+// Выданные ранее токены лежат здесь, поэтому переход на redis - отдельное решение (см. README)
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "auth.refresh-token.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    @Override
+    @Transactional
+    public void save(String token, Long userId, String deviceId, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.upsertSession(userId, deviceId, RefreshTokens.hash(token), now.plus(ttl), now);
+    }
+
+    @Override
+    @Transactional
+    public Optional<RefreshSession> rotate(String oldToken, String newToken, Duration ttl) {
+        byte[] oldHash = RefreshTokens.hash(oldToken);
+        // Строки, еще не дозаполненные хэшем, находятся по открытому токену
+        Optional<RefreshToken> existing = refreshTokenRepository.findByTokenHash(oldHash)
+            .or(() -> refreshTokenRepository.findByToken(oldToken));
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        RefreshToken session = existing.get();
+        LocalDateTime now = LocalDateTime.now();
+        int rotated = refreshTokenRepository.rotateSession(
+            session.getId(), oldHash, oldToken, RefreshTokens.hash(newToken), now.plus(ttl), now);
+        if (rotated == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new RefreshSession(session.getUser().getId(), session.getDeviceId()));
+    }
+
+    @Override
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.deleteAllByUserId(userId);
+    }
+}
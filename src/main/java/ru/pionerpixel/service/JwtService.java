@@ -1,27 +1,52 @@
 package ru.pionerpixel.service;
 
 import io.jsonwebtoken.*;
-import jakarta.annotation.PostConstruct;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureAlgorithm;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.*;
 import org.springframework.stereotype.*;
+import ru.pionerpixel.config.JwtSigningProperties;
+import ru.pionerpixel.security.JwtSigningKeys;
 
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
 public class JwtService {
-    @Value("${jwt.secret}")
-    private String secret;
 
-    @Value("${jwt.access-token-expiration}")
-    private long accessExpiration;
+    // Время выпуска в миллисекундах: iat по стандарту в секундах, и отзыв сессий по нему
+    // отклонял бы токены, выпущенные в ту же секунду после отзыва
+    public static final String ISSUED_AT_MS_CLAIM = "iat_ms";
 
-    @Value("${jwt.refresh-token-expiration}")
-    private long refreshExpiration;
+    private final SecretKey signingKey;
+    // null в режиме HS256
+    private final JwtSigningKeys asymmetricKeys;
+    // До этого момента в асимметричном режиме принимаются токены без kid, подписанные jwt.secret; null - не принимаются
+    private final Instant legacyHmacUntil;
+    private final JwtParser parser;
+    private final long accessExpiration;
+    private final long refreshExpiration;
 
-    @PostConstruct
-    public void init() {
+    public JwtService(String secret, long accessExpiration, long refreshExpiration) {
+        this(secret, accessExpiration, refreshExpiration, new JwtSigningProperties());
+    }
+
+    // Ключ и парсер создаются один раз: JwtParser неизменяем и безопасен для потоков.
+    // jwt.secret, как и раньше, декодируется из Base64, поэтому выпущенные токены остаются валидными
+    @Autowired
+    public JwtService(
+        @Value("${jwt.secret}") String secret,
+        @Value("${jwt.access-token-expiration}") long accessExpiration,
+        @Value("${jwt.refresh-token-expiration}") long refreshExpiration,
+        JwtSigningProperties signingProperties
+    ) {
         if (secret == null || secret.isBlank()) {
             throw new IllegalStateException("Секретный ключ JWT не настроен");
         }
@@ -31,6 +56,24 @@ public class JwtService {
         if (refreshExpiration <= 0) {
             throw new IllegalStateException("Время жизни refresh-токена должно быть положительным");
         }
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        if (signingProperties.getAlgorithm() == JwtSigningProperties.Algorithm.HS256) {
+            this.asymmetricKeys = null;
+            this.legacyHmacUntil = null;
+            this.parser = Jwts.parser().verifyWith(signingKey).build();
+        } else {
+            if (signingProperties.isAcceptLegacyHmac() && signingProperties.getAcceptLegacyHmacUntil() == null) {
+                throw new IllegalStateException(
+                    "Для jwt.signing.accept-legacy-hmac нужен срок jwt.signing.accept-legacy-hmac-until");
+            }
+            this.asymmetricKeys = JwtSigningKeys.from(signingProperties);
+            this.legacyHmacUntil = signingProperties.isAcceptLegacyHmac()
+                ? signingProperties.getAcceptLegacyHmacUntil()
+                : null;
+            this.parser = Jwts.parser().keyLocator(this::locateVerificationKey).build();
+        }
+        this.accessExpiration = accessExpiration;
+        this.refreshExpiration = refreshExpiration;
     }
 
     public String generateAccessToken(Long userId) {
@@ -45,27 +88,62 @@ public class JwtService {
     }
 
     private String buildToken(Long userId, long expiration) {
-        return Jwts.builder()
-            .setSubject(userId.toString())
-            .setIssuedAt(new Date())
-            .setExpiration(new Date(System.currentTimeMillis() + expiration))
-            .signWith(SignatureAlgorithm.HS256, secret)
+        long now = System.currentTimeMillis();
+        JwtBuilder builder = Jwts.builder()
+            .subject(userId.toString())
+            .issuedAt(new Date(now))
+            .claim(ISSUED_AT_MS_CLAIM, now)
+            .expiration(new Date(now + expiration));
+        if (asymmetricKeys == null) {
+            return builder.signWith(signingKey, Jwts.SIG.HS256).compact();
+        }
+        // kid указывает проверяющей стороне, каким ключом из JWKS проверять подпись
+        return builder.header().keyId(asymmetricKeys.getActiveKeyId()).and()
+            .signWith(asymmetricKeys.getActivePrivateKey(), signatureAlgorithm())
             .compact();
     }
 
+    private SignatureAlgorithm signatureAlgorithm() {
+        return asymmetricKeys.getAlgorithm() == JwtSigningProperties.Algorithm.RS256 ? Jwts.SIG.RS256 : Jwts.SIG.EdDSA;
+    }
+
+    // Токены без kid выпущены до перехода на асимметричные ключи. Общим секретом они проверяются
+    // только в явно включенный переходный период, иначе владелец секрета мог бы выпускать токены бессрочно
+    private Key locateVerificationKey(Header header) {
+        if (!(header instanceof JwsHeader jwsHeader)) {
+            throw new UnsupportedJwtException("Ожидается подписанный токен");
+        }
+        if (jwsHeader.getKeyId() == null) {
+            if (legacyHmacUntil == null || !Instant.now().isBefore(legacyHmacUntil)) {
+                throw new JwtException("Токены без kid больше не принимаются");
+            }
+            return signingKey;
+        }
+        Key key = asymmetricKeys.findPublicKey(jwsHeader.getKeyId());
+        if (key == null) {
+            throw new JwtException("Неизвестный ключ подписи токена: " + jwsHeader.getKeyId());
+        }
+        return key;
+    }
+
+    // Срок приема токенов без kid; null - такие токены не ограничены переходным периодом
+    // (режим HS256) или уже не принимаются
+    public Instant getLegacyHmacUntil() {
+        return legacyHmacUntil;
+    }
+
+    // Публичные ключи для локальной проверки токенов другими сервисами; в режиме HS256 пусто
+    public Map<String, Object> publicJwks() {
+        return asymmetricKeys == null ? Map.of("keys", List.of()) : asymmetricKeys.toJwkSet();
+    }
+
     public Long extractUserId(String token) {
         if (token == null || token.isBlank()) {
             throw new IllegalArgumentException("Токен не может быть null или пустым");
         }
 
         try {
-            Claims claims = Jwts.parser()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-            return Long.parseLong(claims.getSubject());
+            return Long.parseLong(parser.parseSignedClaims(token).getPayload().getSubject());
         } catch (ExpiredJwtException ex) {
             throw ex; // Позволяет обработать отдельно
         } catch (Exception e) {
@@ -74,16 +152,21 @@ public class JwtService {
         }
     }
 
+    // Проверяет подпись и срок действия токена и возвращает его claims
+    public Claims parseClaims(String token) {
+        if (token == null || token.isBlank()) {
+            throw new JwtException("Токен не может быть null или пустым");
+        }
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
     public boolean validateToken(String token) {
         if (token == null || token.isBlank()) {
             return false;
         }
 
         try {
-            Jwts.parser()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token);
+            parser.parseSignedClaims(token);
             return true;
         } catch (ExpiredJwtException ex) {
             log.error("Токен просрочен", ex);
@@ -93,4 +176,4 @@ public class JwtService {
             return false;
         }
     }
-}
\ No newline at end of file
+}
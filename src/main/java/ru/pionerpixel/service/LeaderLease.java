@@ -0,0 +1,111 @@
+package ru.pionerpixel.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.pionerpixel.config.SchedulerProperties;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Запускает задачу только на узле, получившем аренду. Пока задача выполняется,
+// аренда продлевается, поэтому длинный запуск не перехватывается другим узлом.
+// Если аренда все же потеряна, задача узнает об этом через переданный признак и останавливается
+@Slf4j
+@Service
+public class LeaderLease {
+
+    private final SchedulerLock schedulerLock;
+    private final SchedulerProperties schedulerProperties;
+    private final String nodeId;
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("scheduler-lease-heartbeat").daemon().factory());
+
+    public LeaderLease(SchedulerLock schedulerLock, SchedulerProperties schedulerProperties) {
+        this.schedulerLock = schedulerLock;
+        this.schedulerProperties = schedulerProperties;
+        this.nodeId = resolveNodeId(schedulerProperties.getNodeId());
+    }
+
+    public String getNodeId() { return nodeId; }
+
+    // true - задача выполнена этим узлом, false - аренду держит другой узел
+    public boolean runIfLeader(String name, Runnable task) {
+        return runIfLeader(name, leaseHeld -> task.run());
+    }
+
+    // Задача проверяет leaseHeld между шагами: false - аренду мог перехватить другой узел,
+    // и оставшиеся шаги нужно оставить ему
+    public boolean runIfLeader(String name, Consumer<BooleanSupplier> task) {
+        SchedulerProperties.Lock lock = schedulerProperties.getLock();
+        Duration ttl = Duration.ofMillis(lock.getTtlMs());
+
+        if (!schedulerLock.tryAcquire(name, nodeId, ttl)) {
+            log.debug("Задача {} пропущена: аренду держит другой узел", name);
+            return false;
+        }
+
+        log.info("Узел {} получил аренду задачи {}", nodeId, name);
+        // Аренда считается своей, пока хранилище не ответило иначе и не истек ttl с последнего
+        // подтверждения: при недоступном хранилище продление не проходит, и аренда истекает
+        AtomicBoolean lost = new AtomicBoolean();
+        AtomicLong heldUntil = new AtomicLong(System.nanoTime() + ttl.toNanos());
+        BooleanSupplier leaseHeld = () -> !lost.get() && System.nanoTime() - heldUntil.get() < 0;
+
+        long heartbeatMs = Math.max(1, lock.getHeartbeatMs());
+        ScheduledFuture<?> renewal = heartbeat.scheduleAtFixedRate(
+            () -> renew(name, ttl, lost, heldUntil), heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        try {
+            task.accept(leaseHeld);
+            return true;
+        } finally {
+            renewal.cancel(false);
+            schedulerLock.release(name, nodeId);
+        }
+    }
+
+    private void renew(String name, Duration ttl, AtomicBoolean lost, AtomicLong heldUntil) {
+        if (lost.get()) {
+            return;
+        }
+        try {
+            long requestedAt = System.nanoTime();
+            if (schedulerLock.extend(name, nodeId, ttl)) {
+                heldUntil.set(requestedAt + ttl.toNanos());
+            } else {
+                lost.set(true);
+                log.warn("Узел {} потерял аренду задачи {}, задача будет остановлена", nodeId, name);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Не удалось продлить аренду задачи {}: {}", name, e.getMessage());
+        }
+    }
+
+    private static String resolveNodeId(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return configured;
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+    }
+}
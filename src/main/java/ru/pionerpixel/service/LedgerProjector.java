@@ -0,0 +1,142 @@
+package ru.pionerpixel.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.pionerpixel.config.TransferProperties;
+import ru.pionerpixel.entity.Account;
+import ru.pionerpixel.entity.LedgerEntry;
+import ru.pionerpixel.entity.LedgerEntryStatus;
+import ru.pionerpixel.repository.AccountRepository;
+import ru.pionerpixel.repository.LedgerEntryRepository;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Переносит PENDING-записи журнала в балансы пачками: одна блокировка затронутых счетов
+// в порядке id и одно изменение баланса на счет, сколько бы переводов его ни касалось
+@Slf4j
+@Service
+public class LedgerProjector {
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties transferProperties;
+    private final Counter appliedEntries;
+    private final Counter rejectedEntries;
+
+    public LedgerProjector(
+        LedgerEntryRepository ledgerEntryRepository,
+        AccountRepository accountRepository,
+        PlatformTransactionManager transactionManager,
+        TransferProperties transferProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transferProperties = transferProperties;
+        this.appliedEntries = Counter.builder("ledger.entries.applied")
+            .description("Записи журнала, учтенные в балансах")
+            .register(meterRegistry);
+        this.rejectedEntries = Counter.builder("ledger.entries.rejected")
+            .description("Записи журнала, отклоненные из-за нехватки средств или отсутствия счета")
+            .register(meterRegistry);
+    }
+
+    // Журнал разбирается в любом режиме: после переключения из LEDGER принятые переводы
+    // все равно должны попасть в балансы. Пустой журнал - один запрос по частичному индексу
+    @Scheduled(fixedDelayString = "${transfer.ledger.projection-interval-ms:200}")
+    public void project() {
+        int batchSize = Math.max(1, transferProperties.getLedger().getProjectionBatchSize());
+        // Пока пачки заполнены целиком, журнал разбирается без ожидания следующего запуска
+        while (projectBatch(batchSize) == batchSize) {
+            log.debug("Проектор журнала: пачка заполнена, продолжаем");
+        }
+    }
+
+    // Возвращает число обработанных записей
+    public int projectBatch(int batchSize) {
+        Integer processed = transactionTemplate.execute(status -> {
+            List<LedgerEntry> entries = ledgerEntryRepository.lockPendingBatch(batchSize);
+            if (entries.isEmpty()) {
+                return 0;
+            }
+
+            Set<Long> userIds = new LinkedHashSet<>();
+            entries.forEach(entry -> {
+                userIds.add(entry.getSenderId());
+                userIds.add(entry.getRecipientId());
+            });
+            Map<Long, Account> accounts = accountRepository.findAllByUserIdsForUpdate(userIds).stream()
+                .collect(Collectors.toMap(account -> account.getUser().getId(), Function.identity()));
+
+            Map<Long, BigDecimal> available = new HashMap<>();
+            accounts.forEach((userId, account) -> available.put(userId, account.getTotalBalance()));
+            Map<Long, BigDecimal> deltas = new HashMap<>();
+            int applied = 0;
+
+            for (LedgerEntry entry : entries) {
+                String rejection = rejectionReason(entry, available);
+                if (rejection == null) {
+                    available.merge(entry.getSenderId(), entry.getAmount().negate(), BigDecimal::add);
+                    available.merge(entry.getRecipientId(), entry.getAmount(), BigDecimal::add);
+                    deltas.merge(entry.getSenderId(), entry.getAmount().negate(), BigDecimal::add);
+                    deltas.merge(entry.getRecipientId(), entry.getAmount(), BigDecimal::add);
+                    entry.setStatus(LedgerEntryStatus.APPLIED);
+                    applied++;
+                } else {
+                    entry.setStatus(LedgerEntryStatus.REJECTED);
+                    log.warn("Перевод {} из журнала отклонен: {}", entry.getId(), rejection);
+                }
+            }
+
+            deltas.forEach((userId, delta) -> applyDelta(userId, accounts.get(userId), delta));
+            ledgerEntryRepository.markProcessedAt(entries.stream().map(LedgerEntry::getId).toList());
+
+            appliedEntries.increment(applied);
+            rejectedEntries.increment(entries.size() - applied);
+            return entries.size();
+        });
+        return processed == null ? 0 : processed;
+    }
+
+    // null - перевод можно применить
+    private static String rejectionReason(LedgerEntry entry, Map<Long, BigDecimal> available) {
+        BigDecimal senderAvailable = available.get(entry.getSenderId());
+        if (senderAvailable == null) {
+            return "не найден счет отправителя " + entry.getSenderId();
+        }
+        if (!available.containsKey(entry.getRecipientId())) {
+            return "не найден счет получателя " + entry.getRecipientId();
+        }
+        if (senderAvailable.compareTo(entry.getAmount()) < 0) {
+            return "недостаточно средств у пользователя " + entry.getSenderId();
+        }
+        return null;
+    }
+
+    // Счет заблокирован проектором, поэтому зачисление идет прямо в основной баланс;
+    // суб-балансы переносятся в него, только если основного баланса не хватает на списание
+    private void applyDelta(Long userId, Account account, BigDecimal delta) {
+        if (delta.signum() == 0) {
+            return;
+        }
+        BigDecimal balance = account.getBalance();
+        if (balance.add(delta).signum() < 0 && account.isStriped()) {
+            balance = accountRepository.consolidateStripes(userId);
+        }
+        account.setBalance(balance.add(delta));
+    }
+}
@@ -0,0 +1,14 @@
+package ru.pionerpixel.service;
+
+public enum NameMatchMode {
+    // Имя начинается с заданной строки: lower(name) LIKE 'строка%' по индексу text_pattern_ops
+    PREFIX,
+    // Имя содержит заданную строку: lower(name) LIKE '%строка%' по триграммному индексу pg_trgm
+    CONTAINS;
+
+    // Служебные символы LIKE экранируются, чтобы '%' и '_' в запросе искались буквально
+    public String toLikePattern(String name) {
+        String escaped = name.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return this == PREFIX ? escaped + "%" : "%" + escaped + "%";
+    }
+}
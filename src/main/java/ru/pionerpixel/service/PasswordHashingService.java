@@ -0,0 +1,115 @@
+package ru.pionerpixel.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import ru.pionerpixel.config.PasswordHashingProperties;
+import ru.pionerpixel.exception.AuthThrottledException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// BCrypt выполняется в отдельном ограниченном пуле: при волне входов заняты его потоки, а не все
+// потоки Tomcat, и переводы с чтением профилей продолжают обслуживаться. Переполненная очередь
+// отклоняет вход сразу, а не копит запросы, которые все равно не дождутся ответа
+@Slf4j
+@Service
+public class PasswordHashingService {
+
+    private static final String THROTTLED_MESSAGE = "Слишком много попыток входа, повторите позже";
+
+    private final PasswordEncoder passwordEncoder;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+    private final Timer hashTimer;
+    private final Counter rejected;
+
+    public PasswordHashingService(
+        PasswordEncoder passwordEncoder,
+        PasswordHashingProperties properties,
+        MeterRegistry meterRegistry
+    ) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMs = properties.getTimeoutMs();
+        int poolSize = properties.getPoolSize() > 0
+            ? properties.getPoolSize()
+            : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(
+            poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+            Thread.ofPlatform().name("password-hashing-", 0).daemon().factory(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = Timer.builder("auth.password.hash.time")
+            .description("Время проверки или вычисления хэша пароля")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.hash.rejected")
+            .description("Проверки пароля, отклоненные из-за переполнения пула")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.hash.queue", executor, pool -> pool.getQueue().size())
+            .description("Проверки пароля в очереди")
+            .register(meterRegistry);
+        Gauge.builder("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Проверки пароля в работе")
+            .register(meterRegistry);
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    // Дешевая проверка префикса и параметров хэша, пул не нужен
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> hashTimer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Пул хэширования паролей переполнен, вход отклонен");
+            throw new AuthThrottledException(THROTTLED_MESSAGE);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Задача из очереди больше не нужна: клиент уже получил отказ
+            future.cancel(true);
+            rejected.increment();
+            log.warn("Проверка пароля не уложилась в {} мс, вход отклонен", timeoutMs);
+            throw new AuthThrottledException(THROTTLED_MESSAGE);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Проверка пароля прервана", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Ошибка проверки пароля", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,61 @@
+package ru.pionerpixel.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "redis", matchIfMissing = true)
+public class RedisIdempotencyStore implements IdempotencyStore {
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public IdempotencyEntry putIfAbsent(String key, IdempotencyEntry entry, Duration ttl) {
+        String value = write(entry);
+        // Ключ мог истечь между SET NX и GET, тогда резервируем повторно
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, ttl))) {
+                return null;
+            }
+            String existing = redisTemplate.opsForValue().get(key);
+            if (existing != null) {
+                return read(existing);
+            }
+        }
+        throw new IllegalStateException("Не удалось зарезервировать ключ идемпотентности " + key);
+    }
+
+    @Override
+    public void put(String key, IdempotencyEntry entry, Duration ttl) {
+        redisTemplate.opsForValue().set(key, write(entry), ttl);
+    }
+
+    @Override
+    public void remove(String key) {
+        redisTemplate.delete(key);
+    }
+
+    private String write(IdempotencyEntry entry) {
+        try {
+            return objectMapper.writeValueAsString(entry);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать запись идемпотентности", e);
+        }
+    }
+
+    private IdempotencyEntry read(String value) {
+        try {
+            return objectMapper.readValue(value, IdempotencyEntry.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось прочитать запись идемпотентности", e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ru.pionerpixel.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import ru.pionerpixel.config.RefreshTokenProperties;
+import ru.pionerpixel.security.RefreshTokens;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+// Токены живут в Redis с собственным TTL: истекшие удаляются самим Redis, а вход и обновление
+// токена не пишут в Postgres. Значение токена - "v2:userId:issuedAtMs:deviceId"; хэш
+// refresh-token:user:<id> хранит ключ токена каждого устройства пользователя.
+// Прежние значения "userId" и "userId:deviceId" без времени выдачи продолжают читаться
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "auth.refresh-token.store", havingValue = "redis")
+public class RedisRefreshTokenStore implements RefreshTokenStore {
+
+    private static final String KEY_PREFIX = "refresh-token:";
+    // Сессия токенов, выданных до разделения по устройствам
+    private static final String LEGACY_DEVICE_ID = "legacy";
+
+    // Разбор значения токена; возвращает userId, время выдачи (или nil) и устройство
+    private static final String PARSE_SESSION = """
+        local function parseSession(value, legacyDeviceId)
+            local userId, issuedAt, deviceId = string.match(value, '^v2:(%d+):(%d+):(.*)$')
+            if userId then
+                return userId, tonumber(issuedAt), deviceId
+            end
+            userId, deviceId = string.match(value, '^(%d+):(.*)$')
+            if userId then
+                return userId, nil, deviceId
+            end
+            return value, nil, legacyDeviceId
+        end
+        local function nowMs()
+            local time = redis.call('TIME')
+            return tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+        end
+        """;
+
+    // Прежний токен устройства удаляется вместе с записью нового; время выдачи берется из часов Redis,
+    // чтобы его можно было сравнивать с моментом отзыва независимо от часов узлов
+    private static final RedisScript<Long> SAVE_SCRIPT = RedisScript.of(PARSE_SESSION + """
+        local previous = redis.call('HGET', KEYS[2], ARGV[2])
+        if previous then
+            redis.call('DEL', previous)
+        end
+        redis.call('SET', KEYS[1], 'v2:' .. ARGV[1] .. ':' .. nowMs() .. ':' .. ARGV[2], 'PX', ARGV[3])
+        redis.call('HSET', KEYS[2], ARGV[2], KEYS[1])
+        redis.call('PEXPIRE', KEYS[2], ARGV[3])
+        return 1
+        """, Long.class);
+
+    // Сравнение с прочитанным значением + DEL + SET одним скриптом: два параллельных обновления одним
+    // токеном не получат два новых. Токен, выданный до отзыва всех сессий (или без времени выдачи,
+    // если отзыв был), погашается без выдачи нового.
+    // KEYS: старый токен, новый токен, хэш сессий пользователя, время отзыва сессий пользователя
+    private static final RedisScript<String> ROTATE_SCRIPT = RedisScript.of(PARSE_SESSION + """
+        if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+            return false
+        end
+        local userId, issuedAt, deviceId = parseSession(ARGV[1], ARGV[3])
+        local revokedAt = redis.call('GET', KEYS[4])
+        if revokedAt and (not issuedAt or issuedAt < tonumber(revokedAt)) then
+            redis.call('DEL', KEYS[1])
+            return false
+        end
+        redis.call('DEL', KEYS[1])
+        redis.call('SET', KEYS[2], 'v2:' .. userId .. ':' .. nowMs() .. ':' .. deviceId, 'PX', ARGV[2])
+        redis.call('HSET', KEYS[3], deviceId, KEYS[2])
+        redis.call('PEXPIRE', KEYS[3], ARGV[2])
+        return userId .. ':' .. deviceId
+        """, String.class);
+
+    // Момент отзыва хранится столько же, сколько живет refresh-токен: более старых токенов к тому
+    // времени не останется, в том числе прежних, не попавших в хэш сессий
+    private static final RedisScript<Long> REVOKE_ALL_SCRIPT = RedisScript.of(PARSE_SESSION + """
+        local tokens = redis.call('HVALS', KEYS[1])
+        for _, token in ipairs(tokens) do
+            redis.call('DEL', token)
+        end
+        redis.call('DEL', KEYS[1])
+        redis.call('SET', KEYS[2], nowMs(), 'PX', ARGV[1])
+        return #tokens
+        """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RefreshTokenProperties refreshTokenProperties;
+
+    @Override
+    public void save(String token, Long userId, String deviceId, Duration ttl) {
+        redisTemplate.execute(
+            SAVE_SCRIPT,
+            List.of(key(token), sessionsKey(userId)),
+            userId.toString(), deviceId, Long.toString(ttl.toMillis()));
+    }
+
+    // Пользователь токена нужен до скрипта, чтобы передать ключи его сессий в KEYS;
+    // скрипт повторно сверяет значение, поэтому параллельное погашение между чтением и скриптом безопасно
+    @Override
+    public Optional<RefreshSession> rotate(String oldToken, String newToken, Duration ttl) {
+        String oldKey = key(oldToken);
+        String value = redisTemplate.opsForValue().get(oldKey);
+        if (value == null) {
+            // Ключ по открытому токену, под которым токены хранились до перехода на хэш
+            oldKey = KEY_PREFIX + oldToken;
+            value = redisTemplate.opsForValue().get(oldKey);
+        }
+        if (value == null) {
+            return Optional.empty();
+        }
+        Long userId = userIdOf(value);
+        if (userId == null) {
+            return Optional.empty();
+        }
+
+        String session = redisTemplate.execute(
+            ROTATE_SCRIPT,
+            List.of(oldKey, key(newToken), sessionsKey(userId), revokedAtKey(userId)),
+            value, Long.toString(ttl.toMillis()), LEGACY_DEVICE_ID);
+        if (session == null) {
+            return Optional.empty();
+        }
+        int separator = session.indexOf(':');
+        return Optional.of(new RefreshSession(
+            Long.valueOf(session.substring(0, separator)), session.substring(separator + 1)));
+    }
+
+    @Override
+    public void revokeAll(Long userId) {
+        redisTemplate.execute(
+            REVOKE_ALL_SCRIPT,
+            List.of(sessionsKey(userId), revokedAtKey(userId)),
+            Long.toString(refreshTokenProperties.getTtlMs()));
+    }
+
+    // "v2:userId:issuedAt:deviceId", "userId:deviceId" или "userId"
+    private static Long userIdOf(String value) {
+        String rest = value.startsWith("v2:") ? value.substring(3) : value;
+        int separator = rest.indexOf(':');
+        try {
+            return Long.valueOf(separator < 0 ? rest : rest.substring(0, separator));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String key(String token) {
+        return KEY_PREFIX + "sha256:" + RefreshTokens.hashHex(token);
+    }
+
+    private static String sessionsKey(Long userId) {
+        return KEY_PREFIX + "user:" + userId;
+    }
+
+    private static String revokedAtKey(Long userId) {
+        return KEY_PREFIX + "revoked-at:" + userId;
+    }
+}
@@ -0,0 +1,100 @@
+package ru.pionerpixel.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.pionerpixel.config.RefreshTokenProperties;
+import ru.pionerpixel.repository.RefreshTokenRepository;
+
+import java.time.LocalDateTime;
+
+// Удаляет истекшие строки refresh_tokens, которые никто больше не предъявит, и дозаполняет
+// token_hash у строк, записанных до перехода на хэши. Работает пачками, чтобы не держать
+// долгих блокировок на таблице, в которую пишет каждый вход
+@Slf4j
+@Service
+public class RefreshTokenPurger {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RefreshTokenProperties refreshTokenProperties;
+    private final Counter purgedTokens;
+    private final Counter backfilledTokens;
+    private final Timer purgeTimer;
+
+    public RefreshTokenPurger(
+        RefreshTokenRepository refreshTokenRepository,
+        PlatformTransactionManager transactionManager,
+        RefreshTokenProperties refreshTokenProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.refreshTokenProperties = refreshTokenProperties;
+        this.purgedTokens = Counter.builder("auth.refresh-tokens.purged")
+            .description("Удаленные истекшие refresh-токены")
+            .register(meterRegistry);
+        this.backfilledTokens = Counter.builder("auth.refresh-tokens.backfilled")
+            .description("Старые refresh-токены, переведенные на хранение хэша")
+            .register(meterRegistry);
+        this.purgeTimer = Timer.builder("auth.refresh-tokens.purge.time")
+            .description("Время очистки истекших refresh-токенов")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.refresh-token.purge.interval-ms:600000}")
+    public void purgeExpired() {
+        Long purged = purgeTimer.record(this::purgeBatches);
+        if (purged != null && purged > 0) {
+            log.info("Удалено истекших refresh-токенов: {}", purged);
+        }
+        long backfilled = backfillTokenHashes();
+        if (backfilled > 0) {
+            log.info("Переведено на хранение хэша refresh-токенов: {}", backfilled);
+        }
+    }
+
+    // Возвращает число удаленных строк
+    public long purgeBatches() {
+        RefreshTokenProperties.Purge purge = refreshTokenProperties.getPurge();
+        int batchSize = Math.max(1, purge.getBatchSize());
+        LocalDateTime now = LocalDateTime.now();
+        long total = 0;
+
+        for (int batch = 0; batch < purge.getMaxBatchesPerRun(); batch++) {
+            Integer deleted = transactionTemplate.execute(status ->
+                refreshTokenRepository.deleteExpiredBatch(now, batchSize));
+            int count = deleted == null ? 0 : deleted;
+            total += count;
+            purgedTokens.increment(count);
+            if (count < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    // После переноса всех строк запрос находит пустую выборку по token_hash IS NULL и ничего не делает
+    public long backfillTokenHashes() {
+        RefreshTokenProperties.Purge purge = refreshTokenProperties.getPurge();
+        int batchSize = Math.max(1, purge.getBatchSize());
+        long total = 0;
+
+        for (int batch = 0; batch < purge.getMaxBatchesPerRun(); batch++) {
+            Integer updated = transactionTemplate.execute(status ->
+                refreshTokenRepository.backfillTokenHashBatch(batchSize));
+            int count = updated == null ? 0 : updated;
+            total += count;
+            backfilledTokens.increment(count);
+            if (count < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
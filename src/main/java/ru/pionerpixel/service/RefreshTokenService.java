@@ -1,40 +1,48 @@
 package ru.pionerpixel.service;
 
 import org.springframework.stereotype.Service;
-import ru.pionerpixel.entity.RefreshToken;
-import ru.pionerpixel.entity.User;
-import ru.pionerpixel.exception.TokenRefreshException;
-import ru.pionerpixel.repository.RefreshTokenRepository;
-import java.time.LocalDateTime;
-import java.util.Optional;
-import java.util.UUID;
+import ru.pionerpixel.config.RefreshTokenProperties;
+import ru.pionerpixel.exception.RefreshTokenException;
+import ru.pionerpixel.security.RefreshTokens;
+
+import java.time.Duration;
 
 @Service
 public class RefreshTokenService {
 
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenStore refreshTokenStore;
+    private final RefreshTokenProperties refreshTokenProperties;
 
-    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository) {
-        this.refreshTokenRepository = refreshTokenRepository;
+    public RefreshTokenService(RefreshTokenStore refreshTokenStore, RefreshTokenProperties refreshTokenProperties) {
+        this.refreshTokenStore = refreshTokenStore;
+        this.refreshTokenProperties = refreshTokenProperties;
     }
 
-    public RefreshToken createRefreshToken(User user) {
-        RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setUser(user);
-        refreshToken.setToken(UUID.randomUUID().toString());
-        refreshToken.setExpiryDate(LocalDateTime.now().plusDays(30));
-        return refreshTokenRepository.save(refreshToken);
+    public String createRefreshToken(Long userId, String deviceId) {
+        String token = RefreshTokens.generate();
+        refreshTokenStore.save(token, userId, deviceId, ttl());
+        return token;
     }
 
-    public RefreshToken verifyExpiration(RefreshToken token) {
-        if (token.getExpiryDate().isBefore(LocalDateTime.now())) {
-            refreshTokenRepository.delete(token);
-            throw new TokenRefreshException("Refresh-токен истёк");
+    // Старый токен погашается и заменяется новым; повторно предъявленный токен отклоняется
+    public RotatedRefreshToken rotate(String token) {
+        if (token == null || token.isBlank()) {
+            throw new RefreshTokenException("Неверный refresh-токен");
         }
-        return token;
+        String newToken = RefreshTokens.generate();
+        RefreshTokenStore.RefreshSession session = refreshTokenStore.rotate(token, newToken, ttl())
+            .orElseThrow(() -> new RefreshTokenException("Неверный или просроченный refresh-токен"));
+        return new RotatedRefreshToken(session.userId(), session.deviceId(), newToken);
+    }
+
+    public void revokeAll(Long userId) {
+        refreshTokenStore.revokeAll(userId);
+    }
+
+    private Duration ttl() {
+        return Duration.ofMillis(refreshTokenProperties.getTtlMs());
     }
 
-    public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+    public record RotatedRefreshToken(Long userId, String deviceId, String token) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package ru.pionerpixel.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// Хранилище refresh-токенов: одна сессия на пару (пользователь, устройство).
+// Реализация выбирается свойством auth.refresh-token.store
+public interface RefreshTokenStore {
+
+    // Новый вход с того же устройства заменяет его прежнюю сессию, другие устройства не затрагиваются
+    void save(String token, Long userId, String deviceId, Duration ttl);
+
+    // Атомарно погашает oldToken и выдает newToken той же сессии.
+    // Возвращает сессию или empty, если oldToken неизвестен, истек или уже использован
+    Optional<RefreshSession> rotate(String oldToken, String newToken, Duration ttl);
+
+    // Завершает все сессии пользователя
+    void revokeAll(Long userId);
+
+    record RefreshSession(Long userId, String deviceId) {
+    }
+}
@@ -0,0 +1,15 @@
+package ru.pionerpixel.service;
+
+import java.time.Duration;
+
+// Аренда фоновой задачи между узлами. Реализация выбирается свойством scheduler.lock.store
+public interface SchedulerLock {
+
+    // true, если аренда свободна, истекла или уже принадлежит owner
+    boolean tryAcquire(String name, String owner, Duration ttl);
+
+    // Продлевает неистекшую аренду owner, false - аренда потеряна
+    boolean extend(String name, String owner, Duration ttl);
+
+    void release(String name, String owner);
+}
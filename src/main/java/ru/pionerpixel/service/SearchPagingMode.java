@@ -0,0 +1,10 @@
+package ru.pionerpixel.service;
+
+public enum SearchPagingMode {
+    // Page с точным totalElements: второй запрос COUNT по тем же условиям
+    EXACT,
+    // Slice без COUNT: читается size + 1 строка, чтобы узнать, есть ли следующая страница
+    SLICE,
+    // Page с totalElements по оценке планировщика Postgres (EXPLAIN), без COUNT
+    ESTIMATED
+}
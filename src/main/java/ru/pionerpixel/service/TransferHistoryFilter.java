@@ -0,0 +1,13 @@
+package ru.pionerpixel.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Необязательные фильтры истории переводов: [from, to) по времени и [minAmount, maxAmount] по сумме
+public record TransferHistoryFilter(
+    Instant from,
+    Instant to,
+    BigDecimal minAmount,
+    BigDecimal maxAmount
+) {
+}
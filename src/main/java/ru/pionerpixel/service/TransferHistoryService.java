@@ -0,0 +1,85 @@
+package ru.pionerpixel.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.pionerpixel.dto.transfer.TransferHistoryItemDto;
+import ru.pionerpixel.dto.transfer.TransferHistoryPageDto;
+import ru.pionerpixel.entity.LedgerEntry;
+import ru.pionerpixel.repository.LedgerEntryRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class TransferHistoryService {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    // Курсор - непрозрачная строка с (created_at, id) последнего перевода страницы
+    @Transactional(readOnly = true)
+    public TransferHistoryPageDto getHistory(Long userId, TransferHistoryFilter filter, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_LIMIT);
+        }
+
+        CursorPosition after = cursor == null || cursor.isBlank() ? null : decodeCursor(cursor);
+
+        // Лишняя строка показывает, есть ли следующая страница, без отдельного COUNT
+        List<LedgerEntry> entries = ledgerEntryRepository.findHistory(
+            userId,
+            filter,
+            after == null ? null : after.createdAt(),
+            after == null ? null : after.id(),
+            pageSize + 1
+        );
+        boolean hasNext = entries.size() > pageSize;
+        List<LedgerEntry> page = hasNext ? entries.subList(0, pageSize) : entries;
+
+        List<TransferHistoryItemDto> items = page.stream()
+            .map(entry -> toDto(userId, entry))
+            .toList();
+        String nextCursor = hasNext ? encodeCursor(page.get(page.size() - 1)) : null;
+        return new TransferHistoryPageDto(items, nextCursor);
+    }
+
+    private static TransferHistoryItemDto toDto(Long userId, LedgerEntry entry) {
+        boolean outgoing = entry.getSenderId().equals(userId);
+        return new TransferHistoryItemDto(
+            entry.getId(),
+            outgoing ? TransferHistoryItemDto.Direction.OUTGOING : TransferHistoryItemDto.Direction.INCOMING,
+            outgoing ? entry.getRecipientId() : entry.getSenderId(),
+            entry.getAmount(),
+            entry.getStatus(),
+            entry.getCreatedAt()
+        );
+    }
+
+    private static String encodeCursor(LedgerEntry entry) {
+        String position = entry.getCreatedAt() + "|" + entry.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static CursorPosition decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Неверный курсор истории переводов");
+            }
+            return new CursorPosition(Instant.parse(position[0]), Long.parseLong(position[1]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неверный курсор истории переводов");
+        }
+    }
+
+    private record CursorPosition(Instant createdAt, Long id) {
+    }
+}
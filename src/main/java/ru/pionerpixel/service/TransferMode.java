@@ -0,0 +1,10 @@
+package ru.pionerpixel.service;
+
+public enum TransferMode {
+    // Списание и зачисление одним оператором (AccountRepository.transferAtomically)
+    ATOMIC,
+    // Блокировка обоих счетов в порядке id, затем изменение балансов
+    ORDERED,
+    // Перевод добавляется в журнал transactions, балансы меняет LedgerProjector
+    LEDGER
+}
@@ -0,0 +1,30 @@
+package ru.pionerpixel.service;
+
+// Результат перевода, коды 0-3 и 5 совпадают с CASE в AccountRepository.transferAtomically
+public enum TransferOutcome {
+    COMPLETED(0),
+    SENDER_NOT_FOUND(1),
+    RECIPIENT_NOT_FOUND(2),
+    INSUFFICIENT_FUNDS(3),
+    // Только для пакетных переводов: перевод самому себе или неположительная сумма
+    INVALID_REQUEST(4),
+    // Списание выполнено, а зачисление нет: транзакция откатывается и перевод повторяется
+    CREDIT_NOT_APPLIED(5);
+
+    private final int code;
+
+    TransferOutcome(int code) {
+        this.code = code;
+    }
+
+    public int getCode() { return code; }
+
+    public static TransferOutcome fromCode(int code) {
+        for (TransferOutcome outcome : values()) {
+            if (outcome.code == code) {
+                return outcome;
+            }
+        }
+        throw new IllegalStateException("Неизвестный код результата перевода: " + code);
+    }
+}
@@ -0,0 +1,47 @@
+package ru.pionerpixel.service;
+
+import org.springframework.data.domain.Sort;
+import ru.pionerpixel.exception.UserSearchException;
+import ru.pionerpixel.repository.UserSearchRow;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Позиция после последней строки страницы: сортировка, id и значение ключа сортировки.
+// Для клиента это непрозрачная строка из nextCursor
+public record UserSearchCursor(UserSortKey sortKey, Sort.Direction direction, Long id, Object value) {
+
+    public static UserSearchCursor after(UserSearchRow row, UserSortKey sortKey, Sort.Direction direction) {
+        Object value = switch (sortKey) {
+            case ID -> null;
+            case NAME -> row.getName();
+            case DATE_OF_BIRTH -> row.getDateOfBirth();
+        };
+        return new UserSearchCursor(sortKey, direction, row.getId(), value);
+    }
+
+    public String encode() {
+        // Значение идет последним: имя может содержать разделитель
+        String position = sortKey + "|" + direction + "|" + id + "|" + (value == null ? "" : value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static UserSearchCursor decode(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 4);
+            if (position.length != 4) {
+                throw new UserSearchException("Неверный курсор поиска пользователей");
+            }
+            UserSortKey sortKey = UserSortKey.valueOf(position[0]);
+            return new UserSearchCursor(
+                sortKey,
+                Sort.Direction.valueOf(position[1]),
+                Long.parseLong(position[2]),
+                sortKey.parseValue(position[3])
+            );
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new UserSearchException("Неверный курсор поиска пользователей");
+        }
+    }
+}
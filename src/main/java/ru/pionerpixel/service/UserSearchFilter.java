@@ -0,0 +1,18 @@
+package ru.pionerpixel.service;
+
+import java.time.LocalDate;
+
+// Необязательные фильтры поиска пользователей; null - фильтр не задан
+public record UserSearchFilter(
+    String name,
+    NameMatchMode nameMatch,
+    String email,
+    String phone,
+    LocalDate dateOfBirth
+) {
+
+    // LIKE-шаблон для lower(name) или null, если имя не задано
+    public String namePattern() {
+        return name == null || name.isEmpty() ? null : nameMatch.toLikePattern(name);
+    }
+}
@@ -4,10 +4,14 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.pionerpixel.dto.user.UserResponseDto;
+import ru.pionerpixel.dto.user.UserSearchCursorPageDto;
 import ru.pionerpixel.dto.user.UserUpdateDto;
 import ru.pionerpixel.entity.Account;
 import ru.pionerpixel.entity.EmailData;
@@ -15,29 +19,129 @@ import ru.pionerpixel.entity.PhoneData;
 import ru.pionerpixel.entity.User;
 import ru.pionerpixel.exception.ForbiddenOperationException;
 import ru.pionerpixel.exception.InsufficientFundsException;
+import ru.pionerpixel.exception.UserSearchException;
 import ru.pionerpixel.exception.UserNotFoundException;
 import ru.pionerpixel.mapper.UserMapper;
 import ru.pionerpixel.repository.AccountRepository;
 import ru.pionerpixel.repository.EmailDataRepository;
 import ru.pionerpixel.repository.PhoneDataRepository;
 import ru.pionerpixel.repository.UserRepository;
+import ru.pionerpixel.repository.UserSearchRow;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
+    public static final int DEFAULT_CURSOR_LIMIT = 20;
+    public static final int MAX_CURSOR_LIMIT = 100;
+
     private final UserRepository userRepository;
     private final EmailDataRepository emailDataRepository;
     private final PhoneDataRepository phoneDataRepository;
+    private final AccountRepository accountRepository;
     private final UserMapper userMapper;
 
+    // Поиск в две фазы: страница строк users, затем email, телефоны и балансы всей страницы
+    // вместо трех ленивых загрузок на каждого пользователя.
+    // В режимах SLICE и ESTIMATED COUNT не выполняется
     @Transactional(readOnly = true)
-    public Page<User> searchUsers(String name, String email, String phone, LocalDate dateOfBirth, Pageable pageable) {
-        return userRepository.searchUsers(name, email, phone, dateOfBirth, pageable);
+    public Slice<UserResponseDto> searchUsers(UserSearchFilter filter, SearchPagingMode paging, Pageable pageable) {
+        Slice<UserSearchRow> rows = switch (paging) {
+            case EXACT -> userRepository.searchUsers(filter, pageable);
+            case SLICE -> userRepository.searchUsersSlice(filter, pageable);
+            case ESTIMATED -> withEstimatedTotal(filter, userRepository.searchUsersSlice(filter, pageable));
+        };
+        return rows.map(withDetails(rows.getContent()));
+    }
+
+    // Курсорная пагинация: страница читается с позиции курсора по индексу, без OFFSET и COUNT
+    @Transactional(readOnly = true)
+    public UserSearchCursorPageDto searchUsersByCursor(UserSearchFilter filter, Sort sort, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_CURSOR_LIMIT : limit;
+        if (pageSize < 1 || pageSize > MAX_CURSOR_LIMIT) {
+            throw new UserSearchException("Размер страницы должен быть от 1 до " + MAX_CURSOR_LIMIT);
+        }
+
+        // Вторым полем допускается только id в том же направлении: им и так замыкается порядок курсора
+        List<Sort.Order> orders = sort.toList();
+        Sort.Order order = orders.isEmpty() ? Sort.Order.asc("id") : orders.get(0);
+        boolean idTieBreaker = orders.size() == 2
+            && orders.get(1).getProperty().equals("id")
+            && orders.get(1).getDirection() == order.getDirection();
+        if (orders.size() > 1 && !idTieBreaker) {
+            throw new UserSearchException("Курсорная пагинация поддерживает сортировку только по одному полю");
+        }
+        UserSortKey sortKey = UserSortKey.fromProperty(order.getProperty());
+
+        UserSearchCursor after = cursor == null || cursor.isBlank() ? null : UserSearchCursor.decode(cursor);
+        if (after != null && (after.sortKey() != sortKey || after.direction() != order.getDirection())) {
+            throw new UserSearchException("Курсор получен для другой сортировки");
+        }
+
+        // Лишняя строка показывает, есть ли следующая страница
+        List<UserSearchRow> rows = userRepository.searchUsersAfter(
+            filter, sortKey, order.getDirection(), after, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        List<UserSearchRow> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+        List<UserResponseDto> items = page.stream().map(withDetails(page)).toList();
+        String nextCursor = hasNext
+            ? UserSearchCursor.after(page.get(page.size() - 1), sortKey, order.getDirection()).encode()
+            : null;
+        return new UserSearchCursorPageDto(items, nextCursor);
+    }
+
+    // Email, телефоны и балансы всех строк страницы читаются тремя запросами IN (...)
+    private Function<UserSearchRow, UserResponseDto> withDetails(List<UserSearchRow> rows) {
+        if (rows.isEmpty()) {
+            return row -> toDto(row, Map.of(), Map.of(), Map.of());
+        }
+
+        List<Long> userIds = rows.stream().map(UserSearchRow::getId).toList();
+        Map<Long, List<String>> emails = emailDataRepository.findAllByUserIds(userIds).stream()
+            .collect(Collectors.groupingBy(e -> e.getUser().getId(),
+                Collectors.mapping(EmailData::getEmail, Collectors.toList())));
+        Map<Long, List<String>> phones = phoneDataRepository.findAllByUserIds(userIds).stream()
+            .collect(Collectors.groupingBy(p -> p.getUser().getId(),
+                Collectors.mapping(PhoneData::getPhone, Collectors.toList())));
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        accountRepository.findAllByUserIds(userIds)
+            .forEach(account -> balances.put(account.getUser().getId(), account.getTotalBalance()));
+
+        return row -> toDto(row, emails, phones, balances);
+    }
+
+    // На последней странице total известен точно; до нее берется оценка планировщика,
+    // но не меньше уже прочитанных строк, чтобы клиент видел следующую страницу
+    private Page<UserSearchRow> withEstimatedTotal(UserSearchFilter filter, Slice<UserSearchRow> slice) {
+        Pageable pageable = slice.getPageable();
+        long read = (pageable.isPaged() ? pageable.getOffset() : 0) + slice.getNumberOfElements();
+        long total = slice.hasNext() ? Math.max(userRepository.estimateSearchCount(filter), read + 1) : read;
+        return new PageImpl<>(slice.getContent(), pageable, total);
+    }
+
+    private static UserResponseDto toDto(
+        UserSearchRow row,
+        Map<Long, List<String>> emails,
+        Map<Long, List<String>> phones,
+        Map<Long, BigDecimal> balances
+    ) {
+        UserResponseDto dto = new UserResponseDto();
+        dto.setId(row.getId());
+        dto.setName(row.getName());
+        dto.setDateOfBirth(row.getDateOfBirth());
+        dto.setBalance(balances.get(row.getId()));
+        dto.setEmails(emails.getOrDefault(row.getId(), List.of()));
+        dto.setPhones(phones.getOrDefault(row.getId(), List.of()));
+        return dto;
     }
 
     @Transactional
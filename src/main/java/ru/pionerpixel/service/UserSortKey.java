@@ -0,0 +1,40 @@
+package ru.pionerpixel.service;
+
+import ru.pionerpixel.exception.UserSearchException;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Сортировки, для которых есть индекс (ключ, id) и поэтому работает курсорная пагинация
+public enum UserSortKey {
+    ID("id"),
+    NAME("name"),
+    DATE_OF_BIRTH("dateOfBirth");
+
+    private final String property;
+
+    UserSortKey(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public static UserSortKey fromProperty(String property) {
+        return Arrays.stream(values())
+            .filter(key -> key.property.equals(property))
+            .findFirst()
+            .orElseThrow(() -> new UserSearchException(
+                "Курсорная пагинация поддерживает сортировку только по id, name или dateOfBirth"));
+    }
+
+    // Значение ключа сортировки из курсора; для ID ключом служит сам id
+    Object parseValue(String value) {
+        return switch (this) {
+            case ID -> null;
+            case NAME -> value;
+            case DATE_OF_BIRTH -> LocalDate.parse(value);
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package ru.pionerpixel;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.pionerpixel.entity.SessionRevocation;
+import ru.pionerpixel.repository.SessionRevocationRepository;
+import ru.pionerpixel.security.AccessTokenDenylist;
+import ru.pionerpixel.service.JwtService;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AccessTokenDenylistTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00.500Z");
+
+    @Mock
+    private SessionRevocationRepository sessionRevocationRepository;
+
+    private AccessTokenDenylist denylist;
+
+    @BeforeEach
+    void setUp() {
+        denylist = new AccessTokenDenylist(sessionRevocationRepository, 3600000, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void revoke_RejectsTokensIssuedUpToRevocationSecond() {
+        denylist.revoke(5L);
+
+        verify(sessionRevocationRepository).upsert(5L, NOW);
+        assertThat(denylist.isRevoked(5L, Date.from(NOW.minusSeconds(60)))).isTrue();
+        assertThat(denylist.isRevoked(5L, Date.from(Instant.parse("2024-01-01T12:00:00Z")))).isTrue();
+        assertThat(denylist.isRevoked(5L, Date.from(NOW.plusSeconds(1)))).isFalse();
+        assertThat(denylist.isRevoked(6L, Date.from(NOW.minusSeconds(60)))).isFalse();
+    }
+
+    @Test
+    void revoke_MillisecondIssueTime_AcceptsTokenIssuedLaterInSameSecond() {
+        denylist.revoke(5L);
+
+        assertThat(denylist.isRevoked(5L, claims(NOW.minusMillis(1)))).isTrue();
+        assertThat(denylist.isRevoked(5L, claims(NOW))).isTrue();
+        assertThat(denylist.isRevoked(5L, claims(NOW.plusMillis(1)))).isFalse();
+    }
+
+    @Test
+    void revoke_TokenWithoutMillisecondIssueTime_FallsBackToIat() {
+        denylist.revoke(5L);
+        Claims legacy = Jwts.claims().issuedAt(Date.from(NOW.plusMillis(200))).build();
+
+        assertThat(denylist.isRevoked(5L, legacy)).isTrue();
+    }
+
+    @Test
+    void refresh_LoadsRevocationsFromOtherInstances() {
+        when(sessionRevocationRepository.findByRevokedAtAfter(NOW.minusSeconds(3600)))
+            .thenReturn(List.of(revocation(7L, NOW.minusSeconds(10))));
+
+        denylist.refresh();
+
+        assertThat(denylist.isRevoked(7L, Date.from(NOW.minusSeconds(30)))).isTrue();
+        assertThat(denylist.isRevoked(7L, Date.from(NOW))).isFalse();
+        verify(sessionRevocationRepository).deleteOlderThan(NOW.minusSeconds(3600));
+    }
+
+    private static Claims claims(Instant issuedAt) {
+        return Jwts.claims()
+            .issuedAt(Date.from(issuedAt))
+            .add(JwtService.ISSUED_AT_MS_CLAIM, issuedAt.toEpochMilli())
+            .build();
+    }
+
+    private static SessionRevocation revocation(Long userId, Instant revokedAt) {
+        SessionRevocation revocation = new SessionRevocation();
+        revocation.setUserId(userId);
+        revocation.setRevokedAt(revokedAt);
+        return revocation;
+    }
+}
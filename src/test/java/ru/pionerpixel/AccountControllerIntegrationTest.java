@@ -15,6 +15,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import ru.pionerpixel.entity.Account;
 import ru.pionerpixel.entity.User;
 import ru.pionerpixel.repository.AccountRepository;
+import ru.pionerpixel.repository.LedgerEntryRepository;
 import ru.pionerpixel.repository.UserRepository;
 import ru.pionerpixel.service.JwtService;
 
@@ -35,6 +36,9 @@ public class AccountControllerIntegrationTest {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -52,12 +56,15 @@ public class AccountControllerIntegrationTest {
         registry.add("spring.datasource.url", postgres::getJdbcUrl);
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("idempotency.store", () -> "in-memory");
+        registry.add("auth.refresh-token.store", () -> "jpa");
     }
 
     private String validToken;
 
     @BeforeEach
     void prepareAccounts() {
+        ledgerEntryRepository.deleteAll();
         accountRepository.deleteAll();
         userRepository.deleteAll();
 
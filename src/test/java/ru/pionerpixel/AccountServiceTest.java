@@ -3,20 +3,38 @@ package ru.pionerpixel;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.pionerpixel.config.TransferProperties;
+import ru.pionerpixel.dto.transfer.BatchTransferItemResultDto;
+import ru.pionerpixel.dto.transfer.TransferRequestDto;
 import ru.pionerpixel.entity.Account;
 import ru.pionerpixel.entity.User;
 import ru.pionerpixel.exception.InsufficientFundsException;
+import ru.pionerpixel.exception.UserNotFoundException;
 import ru.pionerpixel.repository.AccountRepository;
+import ru.pionerpixel.repository.AccountStripeRepository;
+import ru.pionerpixel.repository.LedgerEntryRepository;
 import ru.pionerpixel.service.AccountService;
+import ru.pionerpixel.service.InterestAccrualService;
+import ru.pionerpixel.service.LeaderLease;
+import ru.pionerpixel.service.TransferMode;
+import ru.pionerpixel.service.TransferOutcome;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -27,7 +45,23 @@ class AccountServiceTest {
     @Mock(strictness = Mock.Strictness.LENIENT)
     private AccountRepository accountRepository;
 
-    @InjectMocks
+    @Mock(strictness = Mock.Strictness.LENIENT)
+    private AccountStripeRepository accountStripeRepository;
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private InterestAccrualService interestAccrualService;
+
+    @Mock
+    private LeaderLease leaderLease;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransferProperties transferProperties;
+    private SimpleMeterRegistry meterRegistry;
     private AccountService accountService;
 
     private Account senderAccount;
@@ -46,6 +80,20 @@ class AccountServiceTest {
 
     @BeforeEach
     void setUp() {
+        transferProperties = new TransferProperties();
+        transferProperties.getRetry().setInitialBackoffMs(0);
+        meterRegistry = new SimpleMeterRegistry();
+        accountService = new AccountService(
+            accountRepository,
+            accountStripeRepository,
+            ledgerEntryRepository,
+            interestAccrualService,
+            leaderLease,
+            transactionManager,
+            transferProperties,
+            meterRegistry
+        );
+
         // Create test users
         senderUser = new User();
         senderUser.setId(1L);
@@ -71,6 +119,8 @@ class AccountServiceTest {
         recipientAccount.setUser(recipientUser);
         recipientAccount.setBalance(new BigDecimal("500.00"));
         recipientAccount.setInitialDeposit(new BigDecimal("500.00"));
+
+        lenient().when(ledgerEntryRepository.sumPendingDebits(any())).thenReturn(BigDecimal.ZERO);
     }
 
     @Test
@@ -79,17 +129,13 @@ class AccountServiceTest {
         Long toUserId = 2L;
         BigDecimal amount = BigDecimal.valueOf(200.00);
 
-        when(accountRepository.findByUserId(fromUserId))
-            .thenReturn(Optional.of(createAccount(fromUserId, BigDecimal.valueOf(1000.00))));
-
-        when(accountRepository.updateBalance(fromUserId, amount.negate())).thenReturn(1);
-        when(accountRepository.updateBalance(toUserId, amount)).thenReturn(1);
+        when(accountRepository.transferAtomically(eq(fromUserId), eq(toUserId), eq(amount), anyInt()))
+            .thenReturn(TransferOutcome.COMPLETED.getCode());
 
         accountService.transferMoney(fromUserId, toUserId, amount);
 
-        verify(accountRepository, times(1)).findByUserId(fromUserId);
-        verify(accountRepository, times(1)).updateBalance(fromUserId, amount.negate());
-        verify(accountRepository, times(1)).updateBalance(toUserId, amount);
+        verify(accountRepository, times(1)).transferAtomically(eq(fromUserId), eq(toUserId), eq(amount), anyInt());
+        verify(accountRepository, never()).findByUserId(any());
     }
 
     @Test
@@ -98,37 +144,44 @@ class AccountServiceTest {
         Long toUserId = 2L;
         BigDecimal amount = BigDecimal.valueOf(200.00);
 
-        Account fromAccount = createAccount(fromUserId, BigDecimal.valueOf(100.00));
-
-        when(accountRepository.findByUserId(fromUserId))
-            .thenReturn(Optional.of(fromAccount));
+        when(accountRepository.transferAtomically(eq(fromUserId), eq(toUserId), eq(amount), anyInt()))
+            .thenReturn(TransferOutcome.INSUFFICIENT_FUNDS.getCode());
 
         assertThrows(InsufficientFundsException.class,
             () -> accountService.transferMoney(fromUserId, toUserId, amount));
 
-        verify(accountRepository, times(1)).findByUserId(fromUserId);
+        verify(accountRepository, times(1)).transferAtomically(eq(fromUserId), eq(toUserId), eq(amount), anyInt());
     }
 
     @Test
     void transferMoney_ExactBalance_ShouldNotThrow() {
-        // Подготовка
-        Account fromAccount = createAccount(1L, new BigDecimal("200.00"));
-        Account toAccount = createAccount(2L, BigDecimal.ZERO);
+        when(accountRepository.transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("200.00")), anyInt()))
+            .thenReturn(TransferOutcome.COMPLETED.getCode());
 
-        when(accountRepository.findByUserId(1L)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findByUserId(2L)).thenReturn(Optional.of(toAccount));
-
-        // Заглушки для updateBalance должны быть добавлены только если они действительно нужны
-        when(accountRepository.updateBalance(1L, new BigDecimal("-200.00"))).thenReturn(1);
-        when(accountRepository.updateBalance(2L, new BigDecimal("200.00"))).thenReturn(1);
-
-        // Выполнение и проверка
         assertDoesNotThrow(() ->
             accountService.transferMoney(1L, 2L, new BigDecimal("200.00")));
 
-        // Проверка обновлений баланса
-        verify(accountRepository).updateBalance(1L, new BigDecimal("-200.00"));
-        verify(accountRepository).updateBalance(2L, new BigDecimal("200.00"));
+        verify(accountRepository).transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("200.00")), anyInt());
+    }
+
+    @Test
+    void transferMoney_SenderNotFound() {
+        when(accountRepository.transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("100.00")), anyInt()))
+            .thenReturn(TransferOutcome.SENDER_NOT_FOUND.getCode());
+
+        assertThatThrownBy(() -> accountService.transferMoney(1L, 2L, new BigDecimal("100.00")))
+            .isInstanceOf(UserNotFoundException.class)
+            .hasMessageContaining("Отправитель не найден");
+    }
+
+    @Test
+    void transferMoney_RecipientNotFound() {
+        when(accountRepository.transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("100.00")), anyInt()))
+            .thenReturn(TransferOutcome.RECIPIENT_NOT_FOUND.getCode());
+
+        assertThatThrownBy(() -> accountService.transferMoney(1L, 2L, new BigDecimal("100.00")))
+            .isInstanceOf(UserNotFoundException.class)
+            .hasMessageContaining("Получатель не найден");
     }
 
     @Test
@@ -160,4 +213,229 @@ class AccountServiceTest {
             .isInstanceOf(IllegalArgumentException.class)
             .hasMessage("Сумма должна быть положительной");
     }
-}
\ No newline at end of file
+
+    @Test
+    void transferMoney_OrderedMode_MovesBalanceBetweenLockedAccounts() {
+        transferProperties.setMode(TransferMode.ORDERED);
+        when(accountRepository.findAllByUserIdsForUpdate(List.of(1L, 2L)))
+            .thenReturn(List.of(senderAccount, recipientAccount));
+
+        accountService.transferMoney(1L, 2L, new BigDecimal("200.00"));
+
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo("800.00");
+        assertThat(recipientAccount.getBalance()).isEqualByComparingTo("700.00");
+        verify(accountRepository, never()).transferAtomically(any(), any(), any(), anyInt());
+        verify(ledgerEntryRepository).recordApplied(1L, "{2}", "{200.00}");
+    }
+
+    @Test
+    void transferMoney_OrderedMode_InsufficientFunds() {
+        transferProperties.setMode(TransferMode.ORDERED);
+        when(accountRepository.findAllByUserIdsForUpdate(List.of(1L, 2L)))
+            .thenReturn(List.of(senderAccount, recipientAccount));
+
+        assertThrows(InsufficientFundsException.class,
+            () -> accountService.transferMoney(1L, 2L, new BigDecimal("1000.01")));
+
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo("1000.00");
+        assertThat(recipientAccount.getBalance()).isEqualByComparingTo("500.00");
+    }
+
+    @Test
+    void transferMoney_OrderedMode_DoesNotSpendPendingDebits() {
+        transferProperties.setMode(TransferMode.ORDERED);
+        when(accountRepository.findAllByUserIdsForUpdate(List.of(1L, 2L)))
+            .thenReturn(List.of(senderAccount, recipientAccount));
+        when(ledgerEntryRepository.sumPendingDebits(1L)).thenReturn(new BigDecimal("900.00"));
+
+        assertThrows(InsufficientFundsException.class,
+            () -> accountService.transferMoney(1L, 2L, new BigDecimal("200.00")));
+
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo("1000.00");
+        verify(ledgerEntryRepository, never()).recordApplied(any(), any(), any());
+    }
+
+    @Test
+    void transferMoney_OrderedMode_RecipientNotFound() {
+        transferProperties.setMode(TransferMode.ORDERED);
+        when(accountRepository.findAllByUserIdsForUpdate(List.of(1L, 2L)))
+            .thenReturn(List.of(senderAccount));
+
+        assertThatThrownBy(() -> accountService.transferMoney(1L, 2L, new BigDecimal("100.00")))
+            .isInstanceOf(UserNotFoundException.class)
+            .hasMessageContaining("Получатель не найден");
+    }
+
+    @Test
+    void transferMoney_RetriesLockConflictAndSucceeds() {
+        when(accountRepository.transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("100.00")), anyInt()))
+            .thenThrow(new CannotAcquireLockException("deadlock detected"))
+            .thenReturn(TransferOutcome.COMPLETED.getCode());
+
+        accountService.transferMoney(1L, 2L, new BigDecimal("100.00"));
+
+        verify(accountRepository, times(2)).transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("100.00")), anyInt());
+        assertThat(meterRegistry.counter("transfer.retries").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void transferMoney_StopsRetryingAfterMaxAttempts() {
+        when(accountRepository.transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("100.00")), anyInt()))
+            .thenThrow(new CannotAcquireLockException("deadlock detected"));
+
+        assertThrows(CannotAcquireLockException.class,
+            () -> accountService.transferMoney(1L, 2L, new BigDecimal("100.00")));
+
+        verify(accountRepository, times(3)).transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("100.00")), anyInt());
+        assertThat(meterRegistry.counter("transfer.retries").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("transfer.retries.exhausted").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void transferMoney_CreditNotApplied_RollsBackAndRetriesWithoutConsolidation() {
+        when(accountRepository.transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("100.00")), anyInt()))
+            .thenReturn(TransferOutcome.CREDIT_NOT_APPLIED.getCode())
+            .thenReturn(TransferOutcome.COMPLETED.getCode());
+
+        accountService.transferMoney(1L, 2L, new BigDecimal("100.00"));
+
+        verify(accountRepository, never()).consolidateStripes(any());
+        verify(accountRepository, times(2)).transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("100.00")), anyInt());
+        assertThat(meterRegistry.counter("transfer.retries").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void transferMoney_StripedSender_ConsolidatesAndRetriesStatement() {
+        when(accountRepository.transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("300.00")), anyInt()))
+            .thenReturn(TransferOutcome.INSUFFICIENT_FUNDS.getCode())
+            .thenReturn(TransferOutcome.COMPLETED.getCode());
+        when(accountRepository.consolidateStripes(1L)).thenReturn(new BigDecimal("400.00"));
+
+        accountService.transferMoney(1L, 2L, new BigDecimal("300.00"));
+
+        verify(accountRepository).consolidateStripes(1L);
+        verify(accountRepository, times(2)).transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("300.00")), anyInt());
+    }
+
+    @Test
+    void transferMoney_PlainSender_InsufficientFundsWithoutRetry() {
+        when(accountRepository.transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("300.00")), anyInt()))
+            .thenReturn(TransferOutcome.INSUFFICIENT_FUNDS.getCode());
+        when(accountRepository.consolidateStripes(1L)).thenReturn(null);
+
+        assertThrows(InsufficientFundsException.class,
+            () -> accountService.transferMoney(1L, 2L, new BigDecimal("300.00")));
+
+        verify(accountRepository, times(1)).transferAtomically(eq(1L), eq(2L), eq(new BigDecimal("300.00")), anyInt());
+    }
+
+    @Test
+    void transferMoney_OrderedMode_CreditsStripeOfHotRecipient() {
+        transferProperties.setMode(TransferMode.ORDERED);
+        recipientAccount.setStripeCount(4);
+        when(accountRepository.findAllByUserIdsForUpdate(List.of(1L, 2L)))
+            .thenReturn(List.of(senderAccount, recipientAccount));
+
+        accountService.transferMoney(1L, 2L, new BigDecimal("200.00"));
+
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo("800.00");
+        assertThat(recipientAccount.getBalance()).isEqualByComparingTo("500.00");
+        verify(accountStripeRepository).creditStripe(eq(2L), anyInt(), eq(new BigDecimal("200.00")));
+    }
+
+    @Test
+    void transferBatch_AppliesAffordableTransfersAndRejectsTheRest() {
+        when(accountRepository.findAllByUserIdsForUpdate(any()))
+            .thenReturn(List.of(senderAccount, recipientAccount));
+        when(accountRepository.creditAccounts(eq("{2}"), eq("{900.00}"), anyInt())).thenReturn(1);
+
+        List<BatchTransferItemResultDto> results = accountService.transferBatch(1L, List.of(
+            transfer(2L, "600.00"),
+            transfer(3L, "10.00"),
+            transfer(2L, "500.00"),
+            transfer(1L, "10.00"),
+            transfer(2L, "300.00")
+        ));
+
+        assertThat(results).extracting(BatchTransferItemResultDto::getStatus).containsExactly(
+            TransferOutcome.COMPLETED,
+            TransferOutcome.RECIPIENT_NOT_FOUND,
+            TransferOutcome.INSUFFICIENT_FUNDS,
+            TransferOutcome.INVALID_REQUEST,
+            TransferOutcome.COMPLETED
+        );
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo("100.00");
+        verify(accountRepository, times(1)).findAllByUserIdsForUpdate(any());
+        verify(accountRepository, times(1)).creditAccounts(eq("{2}"), eq("{900.00}"), anyInt());
+        verify(ledgerEntryRepository).recordApplied(1L, "{2,2}", "{600.00,300.00}");
+    }
+
+    @Test
+    void transferBatch_DoesNotSpendPendingDebits() {
+        // Записи журнала могли остаться от режима LEDGER, поэтому учитываются в любом режиме
+        when(accountRepository.findAllByUserIdsForUpdate(any()))
+            .thenReturn(List.of(senderAccount, recipientAccount));
+        when(ledgerEntryRepository.sumPendingDebits(1L)).thenReturn(new BigDecimal("700.00"));
+        when(accountRepository.creditAccounts(eq("{2}"), eq("{300.00}"), anyInt())).thenReturn(1);
+
+        List<BatchTransferItemResultDto> results = accountService.transferBatch(1L, List.of(
+            transfer(2L, "400.00"),
+            transfer(2L, "300.00")
+        ));
+
+        assertThat(results).extracting(BatchTransferItemResultDto::getStatus).containsExactly(
+            TransferOutcome.INSUFFICIENT_FUNDS,
+            TransferOutcome.COMPLETED
+        );
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo("700.00");
+        verify(ledgerEntryRepository).recordApplied(1L, "{2}", "{300.00}");
+    }
+
+    @Test
+    void transferBatch_NothingAffordable_SkipsWrites() {
+        when(accountRepository.findAllByUserIdsForUpdate(any()))
+            .thenReturn(List.of(senderAccount, recipientAccount));
+
+        List<BatchTransferItemResultDto> results = accountService.transferBatch(1L, List.of(
+            transfer(2L, "5000.00")
+        ));
+
+        assertThat(results).extracting(BatchTransferItemResultDto::getStatus)
+            .containsExactly(TransferOutcome.INSUFFICIENT_FUNDS);
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo("1000.00");
+        verify(accountRepository, never()).creditAccounts(any(), any(), anyInt());
+    }
+
+    @Test
+    void transferMoney_LedgerMode_StrictLocksSenderAndAppendsEntry() {
+        transferProperties.setMode(TransferMode.LEDGER);
+        when(accountRepository.findByUserId(1L)).thenReturn(Optional.of(senderAccount));
+        when(ledgerEntryRepository.recordPending(1L, 2L, new BigDecimal("200.00"), true))
+            .thenReturn(TransferOutcome.COMPLETED.getCode());
+
+        accountService.transferMoney(1L, 2L, new BigDecimal("200.00"));
+
+        verify(accountRepository).findByUserId(1L);
+        verify(accountRepository, never()).transferAtomically(any(), any(), any(), anyInt());
+        assertThat(senderAccount.getBalance()).isEqualByComparingTo("1000.00");
+    }
+
+    @Test
+    void transferMoney_LedgerMode_NonStrictRecipientNotFound() {
+        transferProperties.setMode(TransferMode.LEDGER);
+        transferProperties.getLedger().setStrict(false);
+        when(ledgerEntryRepository.recordPending(1L, 2L, new BigDecimal("200.00"), false))
+            .thenReturn(TransferOutcome.RECIPIENT_NOT_FOUND.getCode());
+
+        assertThrows(UserNotFoundException.class,
+            () -> accountService.transferMoney(1L, 2L, new BigDecimal("200.00")));
+        verify(accountRepository, never()).findByUserId(any());
+    }
+
+    private static TransferRequestDto transfer(Long recipientId, String amount) {
+        TransferRequestDto transfer = new TransferRequestDto();
+        transfer.setRecipientId(recipientId);
+        transfer.setAmount(new BigDecimal(amount));
+        return transfer;
+    }
+}
@@ -0,0 +1,158 @@
+package ru.pionerpixel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import ru.pionerpixel.service.PasswordHashingService;
+import ru.pionerpixel.dto.token.RefreshTokenRequestDto;
+import ru.pionerpixel.exception.AuthThrottledException;
+import ru.pionerpixel.exception.RefreshTokenException;
+import ru.pionerpixel.exception.UserNotFoundException;
+import ru.pionerpixel.repository.LoginCredentials;
+import ru.pionerpixel.repository.UserRepository;
+import ru.pionerpixel.security.AccessTokenDenylist;
+import ru.pionerpixel.service.AuthService;
+import ru.pionerpixel.service.JwtService;
+import ru.pionerpixel.service.RefreshTokenService;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private AccessTokenDenylist accessTokenDenylist;
+
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        authService = new AuthService(jwtService, userRepository, passwordHashingService, refreshTokenService, accessTokenDenylist);
+    }
+
+    @Test
+    void login_ValidPassword_UsesCredentialsProjectionOnly() {
+        when(userRepository.findLoginCredentials("user@example.com")).thenReturn(Optional.of(credentials(5L, "hash")));
+        when(passwordHashingService.matches("secret", "hash")).thenReturn(true);
+        when(jwtService.generateAccessToken(5L)).thenReturn("access");
+        when(refreshTokenService.createRefreshToken(5L, "ios-1")).thenReturn("refresh");
+
+        var response = authService.login("user@example.com", "secret", "ios-1");
+
+        assertThat(response.getAccessToken()).isEqualTo("access");
+        assertThat(response.getRefreshToken()).isEqualTo("refresh");
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).getReferenceById(any());
+        verify(userRepository, never()).findByEmailsEmail(anyString());
+        verify(userRepository, never()).findByPhonesPhone(anyString());
+    }
+
+    @Test
+    void login_OutdatedHash_RehashesWithCurrentParameters() {
+        when(userRepository.findLoginCredentials("user@example.com")).thenReturn(Optional.of(credentials(5L, "old-hash")));
+        when(passwordHashingService.matches("secret", "old-hash")).thenReturn(true);
+        when(passwordHashingService.needsRehash("old-hash")).thenReturn(true);
+        when(passwordHashingService.encode("secret")).thenReturn("new-hash");
+        when(userRepository.updatePasswordHash(5L, "old-hash", "new-hash")).thenReturn(1);
+        when(refreshTokenService.createRefreshToken(5L, AuthService.DEFAULT_DEVICE_ID)).thenReturn("refresh");
+
+        authService.login("user@example.com", "secret", null);
+
+        verify(userRepository).updatePasswordHash(5L, "old-hash", "new-hash");
+    }
+
+    @Test
+    void login_RehashRejected_StillLogsIn() {
+        when(userRepository.findLoginCredentials("user@example.com")).thenReturn(Optional.of(credentials(5L, "old-hash")));
+        when(passwordHashingService.matches("secret", "old-hash")).thenReturn(true);
+        when(passwordHashingService.needsRehash("old-hash")).thenReturn(true);
+        when(passwordHashingService.encode("secret")).thenThrow(new AuthThrottledException("busy"));
+        when(jwtService.generateAccessToken(5L)).thenReturn("access");
+        when(refreshTokenService.createRefreshToken(5L, AuthService.DEFAULT_DEVICE_ID)).thenReturn("refresh");
+
+        assertThat(authService.login("user@example.com", "secret", null).getAccessToken()).isEqualTo("access");
+        verify(userRepository, never()).updatePasswordHash(any(), any(), any());
+    }
+
+    @Test
+    void login_WrongPassword_ThrowsBadCredentials() {
+        when(userRepository.findLoginCredentials("79201234567")).thenReturn(Optional.of(credentials(5L, "hash")));
+        when(passwordHashingService.matches("wrong", "hash")).thenReturn(false);
+
+        assertThatThrownBy(() -> authService.login("79201234567", "wrong", null))
+            .isInstanceOf(BadCredentialsException.class);
+        verify(refreshTokenService, never()).createRefreshToken(any(), any());
+    }
+
+    @Test
+    void login_UnknownIdentifier_ThrowsUserNotFound() {
+        when(userRepository.findLoginCredentials("nobody@example.com")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> authService.login("nobody@example.com", "secret", null))
+            .isInstanceOf(UserNotFoundException.class);
+    }
+
+    @Test
+    void refreshToken_RotatesTokenAndIssuesAccessToken() {
+        RefreshTokenRequestDto request = new RefreshTokenRequestDto();
+        request.setRefreshToken("old");
+        when(refreshTokenService.rotate("old")).thenReturn(new RefreshTokenService.RotatedRefreshToken(5L, "web", "new"));
+        when(jwtService.generateAccessToken(5L)).thenReturn("access");
+
+        var response = authService.refreshToken(request);
+
+        assertThat(response.getAccessToken()).isEqualTo("access");
+        assertThat(response.getRefreshToken()).isEqualTo("new");
+    }
+
+    @Test
+    void refreshToken_ReusedToken_Throws() {
+        RefreshTokenRequestDto request = new RefreshTokenRequestDto();
+        request.setRefreshToken("used");
+        when(refreshTokenService.rotate("used")).thenThrow(new RefreshTokenException("Неверный или просроченный refresh-токен"));
+
+        assertThatThrownBy(() -> authService.refreshToken(request)).isInstanceOf(RefreshTokenException.class);
+        verify(jwtService, never()).generateAccessToken(any());
+    }
+
+    @Test
+    void revokeAllSessions_RevokesRefreshTokensAndDenylistsAccessTokens() {
+        authService.revokeAllSessions(5L);
+
+        verify(refreshTokenService).revokeAll(5L);
+        verify(accessTokenDenylist).revoke(5L);
+    }
+
+    private static LoginCredentials credentials(Long id, String password) {
+        return new LoginCredentials() {
+            @Override
+            public Long getId() { return id; }
+
+            @Override
+            public String getPassword() { return password; }
+        };
+    }
+}
@@ -0,0 +1,134 @@
+package ru.pionerpixel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.pionerpixel.config.IdempotencyProperties;
+import ru.pionerpixel.config.TransferProperties;
+import ru.pionerpixel.dto.transfer.TransferRequestDto;
+import ru.pionerpixel.dto.transfer.TransferResponseDto;
+import ru.pionerpixel.exception.IdempotencyConflictException;
+import ru.pionerpixel.exception.InsufficientFundsException;
+import ru.pionerpixel.service.IdempotencyEntry;
+import ru.pionerpixel.service.IdempotencyService;
+import ru.pionerpixel.service.InMemoryIdempotencyStore;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyServiceTest {
+
+    private IdempotencyService idempotencyService;
+    private AtomicInteger transfers;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(
+            new InMemoryIdempotencyStore(), new IdempotencyProperties(), new TransferProperties());
+        transfers = new AtomicInteger();
+    }
+
+    @Test
+    void executeTransfer_RepeatedKey_ReturnsCachedResponseWithoutTransfer() {
+        TransferResponseDto first = idempotencyService.executeTransfer(1L, "key-1", request(2L, "10.00"), this::transfer);
+        TransferResponseDto replay = idempotencyService.executeTransfer(1L, "key-1", request(2L, "10.0"), this::transfer);
+
+        assertThat(replay).isEqualTo(first);
+        assertThat(transfers).hasValue(1);
+    }
+
+    @Test
+    void executeTransfer_SameKeyDifferentPayload_ThrowsConflict() {
+        idempotencyService.executeTransfer(1L, "key-1", request(2L, "10.00"), this::transfer);
+
+        assertThatThrownBy(() -> idempotencyService.executeTransfer(1L, "key-1", request(2L, "20.00"), this::transfer))
+            .isInstanceOf(IdempotencyConflictException.class);
+        assertThat(transfers).hasValue(1);
+    }
+
+    @Test
+    void executeTransfer_SameKeyOtherUser_IsIndependent() {
+        idempotencyService.executeTransfer(1L, "key-1", request(2L, "10.00"), this::transfer);
+        idempotencyService.executeTransfer(3L, "key-1", request(2L, "10.00"), this::transfer);
+
+        assertThat(transfers).hasValue(2);
+    }
+
+    @Test
+    void executeTransfer_FailedTransfer_ReleasesKey() {
+        assertThatThrownBy(() -> idempotencyService.executeTransfer(1L, "key-1", request(2L, "10.00"), () -> {
+            throw new InsufficientFundsException();
+        })).isInstanceOf(InsufficientFundsException.class);
+
+        idempotencyService.executeTransfer(1L, "key-1", request(2L, "10.00"), this::transfer);
+
+        assertThat(transfers).hasValue(1);
+    }
+
+    @Test
+    void executeTransfer_KeyInProgress_ThrowsConflict() {
+        idempotencyService.executeTransfer(1L, "key-1", request(2L, "10.00"), () -> {
+            assertThatThrownBy(() -> idempotencyService.executeTransfer(1L, "key-1", request(2L, "10.00"), this::transfer))
+                .isInstanceOf(IdempotencyConflictException.class);
+            return transfer();
+        });
+
+        assertThat(transfers).hasValue(1);
+    }
+
+    @Test
+    void executeTransfer_StoreFailsAfterTransfer_ReturnsResponseAndKeepsReservation() {
+        IdempotencyService service = new IdempotencyService(new InMemoryIdempotencyStore() {
+            @Override
+            public void put(String key, IdempotencyEntry entry, Duration ttl) {
+                throw new IllegalStateException("redis down");
+            }
+        }, new IdempotencyProperties(), new TransferProperties());
+
+        TransferResponseDto response = service.executeTransfer(1L, "key-1", request(2L, "10.00"), this::transfer);
+
+        assertThat(response).isNotNull();
+        assertThatThrownBy(() -> service.executeTransfer(1L, "key-1", request(2L, "10.00"), this::transfer))
+            .isInstanceOf(IdempotencyConflictException.class);
+        assertThat(transfers).hasValue(1);
+    }
+
+    @Test
+    void executeTransfer_ReservationOutlivesTransferRetries() {
+        AtomicReference<Duration> reservation = new AtomicReference<>();
+        IdempotencyProperties idempotencyProperties = new IdempotencyProperties();
+        idempotencyProperties.setInProgressTtlMs(1000);
+        TransferProperties transferProperties = new TransferProperties();
+        transferProperties.getRetry().setMaxAttempts(3);
+        transferProperties.getRetry().setAttemptTimeoutMs(5000);
+        transferProperties.getRetry().setMaxBackoffMs(200);
+        IdempotencyService service = new IdempotencyService(new InMemoryIdempotencyStore() {
+            @Override
+            public IdempotencyEntry putIfAbsent(String key, IdempotencyEntry entry, Duration ttl) {
+                reservation.set(ttl);
+                return super.putIfAbsent(key, entry, ttl);
+            }
+        }, idempotencyProperties, transferProperties);
+
+        service.executeTransfer(1L, "key-1", request(2L, "10.00"), this::transfer);
+
+        assertThat(reservation.get()).isEqualTo(Duration.ofMillis(3 * 5000 + 2 * 200));
+    }
+
+    private TransferResponseDto transfer() {
+        transfers.incrementAndGet();
+        return new TransferResponseDto("Перевод успешно завершен", LocalDateTime.now());
+    }
+
+    private static TransferRequestDto request(Long recipientId, String amount) {
+        TransferRequestDto request = new TransferRequestDto();
+        request.setRecipientId(recipientId);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
@@ -0,0 +1,226 @@
+package ru.pionerpixel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.pionerpixel.config.InterestProperties;
+import ru.pionerpixel.entity.InterestAccrualRange;
+import ru.pionerpixel.repository.AccountRepository;
+import ru.pionerpixel.repository.InterestAccrualRangeRepository;
+import ru.pionerpixel.service.InterestAccrualReport;
+import ru.pionerpixel.service.InterestAccrualService;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InterestAccrualServiceTest {
+
+    private static final BigDecimal RATE = new BigDecimal("1.1");
+    private static final BigDecimal CAP = new BigDecimal("2.07");
+    private static final long PERIOD_MS = 60_000;
+    private static final Instant NOW = Instant.parse("2024-05-01T12:00:00Z");
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private InterestAccrualRangeRepository rangeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InterestAccrualService interestAccrualService;
+
+    @BeforeEach
+    void setUp() {
+        InterestProperties interestProperties = new InterestProperties();
+        interestProperties.setChunkSize(10);
+        interestProperties.setParallelism(2);
+        interestProperties.setPeriodMs(PERIOD_MS);
+        interestProperties.setRangeAttempts(2);
+        interestAccrualService = new InterestAccrualService(
+            accountRepository, rangeRepository, transactionManager, interestProperties,
+            Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void accrue_PlansKeysetRangesAndProcessesEach() {
+        when(rangeRepository.findByPeriodKeyOrderByRangeStart(anyLong())).thenReturn(List.of());
+        when(accountRepository.findRangeUpperBound(0L, 10)).thenReturn(15L);
+        when(accountRepository.findRangeUpperBound(15L, 10)).thenReturn(40L);
+        when(accountRepository.findRangeUpperBound(40L, 10)).thenReturn(null);
+        when(rangeRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<InterestAccrualRange> ranges = invocation.getArgument(0);
+            for (int i = 0; i < ranges.size(); i++) {
+                ranges.get(i).setId((long) i + 1);
+            }
+            return ranges;
+        });
+        when(rangeRepository.claim(anyLong(), any())).thenReturn(1);
+        when(accountRepository.accrueInterest(1L, 15L, RATE, CAP)).thenReturn(10);
+        when(accountRepository.accrueInterest(16L, 40L, RATE, CAP)).thenReturn(7);
+
+        InterestAccrualReport report = interestAccrualService.accrue();
+
+        assertThat(report.accountsUpdated()).isEqualTo(17);
+        assertThat(report.rangesProcessed()).isEqualTo(2);
+        assertThat(report.rangesFailed()).isZero();
+        verify(accountRepository).consolidateStripesInRange(16L, 40L);
+        verify(rangeRepository).recordResult(1L, 10);
+        verify(rangeRepository).recordResult(2L, 7);
+    }
+
+    @Test
+    void accrue_ResumesPlan_SkipsProcessedAndClaimedRanges() {
+        InterestAccrualRange processed = range(1L, 1, 10);
+        processed.setProcessedAt(LocalDateTime.now());
+        InterestAccrualRange claimedElsewhere = range(2L, 11, 20);
+        InterestAccrualRange pending = range(3L, 21, 30);
+        when(rangeRepository.findByPeriodKeyOrderByRangeStart(anyLong()))
+            .thenReturn(List.of(processed, claimedElsewhere, pending));
+        when(rangeRepository.claim(eq(2L), any())).thenReturn(0);
+        when(rangeRepository.claim(eq(3L), any())).thenReturn(1);
+        when(accountRepository.accrueInterest(21L, 30L, RATE, CAP)).thenReturn(4);
+
+        InterestAccrualReport report = interestAccrualService.accrue();
+
+        assertThat(report.accountsUpdated()).isEqualTo(4);
+        assertThat(report.rangesProcessed()).isEqualTo(1);
+        verify(rangeRepository, never()).claim(eq(1L), any());
+        verify(accountRepository, never()).accrueInterest(11L, 20L, RATE, CAP);
+        verify(accountRepository, never()).findRangeUpperBound(anyLong(), eq(10));
+    }
+
+    @Test
+    void accrue_FailedRange_DoesNotStopOthers() {
+        when(rangeRepository.findByPeriodKeyOrderByRangeStart(anyLong()))
+            .thenReturn(List.of(range(1L, 1, 10), range(2L, 11, 20)));
+        when(rangeRepository.claim(anyLong(), any())).thenReturn(1);
+        when(accountRepository.accrueInterest(1L, 10L, RATE, CAP)).thenThrow(new IllegalStateException("boom"));
+        when(accountRepository.accrueInterest(11L, 20L, RATE, CAP)).thenReturn(10);
+
+        InterestAccrualReport report = interestAccrualService.accrue();
+
+        assertThat(report.accountsUpdated()).isEqualTo(10);
+        assertThat(report.rangesProcessed()).isEqualTo(1);
+        assertThat(report.rangesFailed()).isEqualTo(1);
+    }
+
+    @Test
+    void accrue_FailedRange_RetriedWithinRun() {
+        when(rangeRepository.findByPeriodKeyOrderByRangeStart(anyLong())).thenReturn(List.of(range(1L, 1, 10)));
+        when(rangeRepository.claim(anyLong(), any())).thenReturn(1);
+        when(accountRepository.accrueInterest(1L, 10L, RATE, CAP))
+            .thenThrow(new IllegalStateException("boom"))
+            .thenReturn(5);
+
+        InterestAccrualReport report = interestAccrualService.accrue();
+
+        assertThat(report.accountsUpdated()).isEqualTo(5);
+        assertThat(report.rangesProcessed()).isEqualTo(1);
+        assertThat(report.rangesFailed()).isZero();
+        verify(rangeRepository, times(2)).claim(eq(1L), any());
+        verify(rangeRepository).recordResult(1L, 5);
+    }
+
+    @Test
+    void accrue_NextTick_RetriesUnprocessedRangesOfPreviousPeriodBeforeDeleting() {
+        // Плановый момент прошлого периода - 2.5 периода назад, следующий отсчитывается от него
+        InterestAccrualRange latest = range(1L, 1, 10);
+        latest.setPeriodKey(7);
+        latest.setTickAt(NOW.minusMillis(PERIOD_MS * 5 / 2));
+        when(rangeRepository.findFirstByOrderByPeriodKeyDesc()).thenReturn(Optional.of(latest));
+        when(rangeRepository.findUnprocessedOlderThan(8)).thenReturn(List.of(latest));
+        when(rangeRepository.findByPeriodKeyOrderByRangeStart(8)).thenReturn(List.of());
+        when(accountRepository.findRangeUpperBound(0L, 10)).thenReturn(10L);
+        when(accountRepository.findRangeUpperBound(10L, 10)).thenReturn(null);
+        when(rangeRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<InterestAccrualRange> ranges = invocation.getArgument(0);
+            assertThat(ranges).singleElement().satisfies(range -> {
+                assertThat(range.getPeriodKey()).isEqualTo(8);
+                assertThat(range.getTickAt()).isEqualTo(NOW.minusMillis(PERIOD_MS / 2));
+            });
+            ranges.get(0).setId(2L);
+            return ranges;
+        });
+        when(rangeRepository.claim(anyLong(), any())).thenReturn(1);
+        when(accountRepository.accrueInterest(1L, 10L, RATE, CAP)).thenReturn(3);
+
+        InterestAccrualReport report = interestAccrualService.accrue();
+
+        assertThat(report.accountsUpdated()).isEqualTo(6);
+        assertThat(report.rangesProcessed()).isEqualTo(2);
+        verify(rangeRepository).deleteProcessedOlderThan(8);
+        verify(rangeRepository).recordResult(1L, 3);
+        verify(rangeRepository).recordResult(2L, 3);
+    }
+
+    @Test
+    void accrue_TickNotDue_ContinuesLatestPeriodWithoutNewPlan() {
+        InterestAccrualRange latest = range(1L, 1, 10);
+        latest.setPeriodKey(7);
+        latest.setTickAt(NOW.minusMillis(PERIOD_MS - 1));
+        latest.setProcessedAt(LocalDateTime.now());
+        when(rangeRepository.findFirstByOrderByPeriodKeyDesc()).thenReturn(Optional.of(latest));
+        when(rangeRepository.findByPeriodKeyOrderByRangeStart(7)).thenReturn(List.of(latest));
+
+        InterestAccrualReport report = interestAccrualService.accrue();
+
+        assertThat(report.rangesProcessed()).isZero();
+        verify(rangeRepository).deleteProcessedOlderThan(7);
+        verify(accountRepository, never()).findRangeUpperBound(anyLong(), eq(10));
+        verify(rangeRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void accrue_LeaseLost_LeavesRangesForNextLeader() {
+        when(rangeRepository.findByPeriodKeyOrderByRangeStart(anyLong()))
+            .thenReturn(List.of(range(1L, 1, 10), range(2L, 11, 20)));
+
+        InterestAccrualReport report = interestAccrualService.accrue(() -> false);
+
+        assertThat(report.rangesProcessed()).isZero();
+        assertThat(report.rangesSkipped()).isEqualTo(2);
+        verify(rangeRepository, never()).claim(anyLong(), any());
+    }
+
+    @Test
+    void accrue_EmptyTable_DoesNothing() {
+        when(rangeRepository.findByPeriodKeyOrderByRangeStart(anyLong())).thenReturn(List.of());
+        when(accountRepository.findRangeUpperBound(0L, 10)).thenReturn(null);
+        when(rangeRepository.saveAll(anyList())).thenReturn(List.of());
+
+        InterestAccrualReport report = interestAccrualService.accrue();
+
+        assertThat(report.accountsUpdated()).isZero();
+        assertThat(report.rangesProcessed()).isZero();
+        verify(accountRepository, never()).accrueInterest(anyLong(), anyLong(), any(), any());
+    }
+
+    private static InterestAccrualRange range(Long id, long start, long end) {
+        InterestAccrualRange range = new InterestAccrualRange();
+        range.setId(id);
+        range.setRangeStart(start);
+        range.setRangeEnd(end);
+        return range;
+    }
+}
@@ -0,0 +1,92 @@
+package ru.pionerpixel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.pionerpixel.entity.RefreshToken;
+import ru.pionerpixel.entity.User;
+import ru.pionerpixel.repository.RefreshTokenRepository;
+import ru.pionerpixel.security.RefreshTokens;
+import ru.pionerpixel.service.JpaRefreshTokenStore;
+import ru.pionerpixel.service.RefreshTokenStore;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JpaRefreshTokenStoreTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private JpaRefreshTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new JpaRefreshTokenStore(refreshTokenRepository);
+    }
+
+    @Test
+    void save_UpsertsDeviceSessionWithHashOnly() {
+        store.save("raw-token", 5L, "ios-1", Duration.ofDays(1));
+
+        verify(refreshTokenRepository).upsertSession(
+            eq(5L), eq("ios-1"), aryEq(RefreshTokens.hash("raw-token")), any(), any());
+    }
+
+    @Test
+    void rotate_LegacyPlainTokenRow_StillAccepted() {
+        RefreshToken legacy = session(10L, 5L, "legacy-10");
+        when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.empty());
+        when(refreshTokenRepository.findByToken("legacy-uuid")).thenReturn(Optional.of(legacy));
+        when(refreshTokenRepository.rotateSession(eq(10L), any(), eq("legacy-uuid"), any(), any(), any())).thenReturn(1);
+
+        assertThat(store.rotate("legacy-uuid", "new-token", Duration.ofDays(1)))
+            .contains(new RefreshTokenStore.RefreshSession(5L, "legacy-10"));
+    }
+
+    @Test
+    void rotate_ConcurrentRotationWon_ReturnsEmpty() {
+        RefreshToken hashed = session(11L, 5L, "web");
+        when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.of(hashed));
+        when(refreshTokenRepository.rotateSession(eq(11L), any(), eq("token"), any(), any(), any())).thenReturn(0);
+
+        assertThat(store.rotate("token", "new-token", Duration.ofDays(1))).isEmpty();
+    }
+
+    @Test
+    void revokeAll_DeletesAllUserSessionsInOneStatement() {
+        store.revokeAll(5L);
+
+        verify(refreshTokenRepository).deleteAllByUserId(5L);
+    }
+
+    @Test
+    void hash_MatchesSha256() {
+        assertThat(HexFormat.of().formatHex(RefreshTokens.hash("abc")))
+            .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+        assertThat(RefreshTokens.generate()).hasSize(43).isNotEqualTo(RefreshTokens.generate());
+    }
+
+    private static RefreshToken session(Long id, Long userId, String deviceId) {
+        User user = new User();
+        user.setId(userId);
+        RefreshToken token = new RefreshToken();
+        token.setId(id);
+        token.setUser(user);
+        token.setDeviceId(deviceId);
+        token.setExpiryDate(LocalDateTime.now().plusDays(1));
+        return token;
+    }
+}
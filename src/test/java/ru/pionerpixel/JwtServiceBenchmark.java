@@ -0,0 +1,74 @@
+package ru.pionerpixel;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.pionerpixel.service.JwtService;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение выпуска и проверки токенов: прежний вариант (строковый секрет, новый парсер
+// на каждый вызов) против общего SecretKey и JwtParser в JwtService.
+// Запуск: mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test,
+// затем java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main JwtServiceBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "supersecretkey12345678901111abcdefghijklmnop";
+    private static final long EXPIRATION = 3600000;
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(SECRET, EXPIRATION, EXPIRATION);
+        token = jwtService.generateAccessToken(1L);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public String generateLegacy() {
+        return Jwts.builder()
+            .setSubject("1")
+            .setIssuedAt(new Date())
+            .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION))
+            .signWith(SignatureAlgorithm.HS256, SECRET)
+            .compact();
+    }
+
+    @Benchmark
+    public String generateShared() {
+        return jwtService.generateAccessToken(1L);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Claims verifyLegacy() {
+        return Jwts.parser()
+            .setSigningKey(SECRET)
+            .build()
+            .parseClaimsJws(token)
+            .getBody();
+    }
+
+    @Benchmark
+    public Claims verifyShared() {
+        return jwtService.parseClaims(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,188 @@
+package ru.pionerpixel;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+import ru.pionerpixel.config.JwtSigningProperties;
+import ru.pionerpixel.service.JwtService;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "testSecretKeyForJwtTokenGenerationAndValidationInTestsOnly";
+
+    private final JwtService jwtService = new JwtService(SECRET, 3600000, 86400000);
+
+    @Test
+    void generateAccessToken_RoundTripsUserId() {
+        String token = jwtService.generateAccessToken(42L);
+
+        assertThat(jwtService.validateToken(token)).isTrue();
+        assertThat(jwtService.extractUserId(token)).isEqualTo(42L);
+        assertThat(jwtService.parseClaims(token).getExpiration()).isAfter(new Date());
+    }
+
+    // Токены, подписанные прежним способом (строковый секрет), должны проходить проверку
+    @Test
+    void generateAccessToken_CarriesMillisecondIssueTime() {
+        long before = System.currentTimeMillis();
+        String token = jwtService.generateAccessToken(42L);
+
+        assertThat(jwtService.parseClaims(token).get(JwtService.ISSUED_AT_MS_CLAIM, Long.class))
+            .isBetween(before, System.currentTimeMillis());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void parseClaims_AcceptsTokensSignedWithLegacyStringSecret() {
+        String legacyToken = Jwts.builder()
+            .setSubject("7")
+            .setIssuedAt(new Date())
+            .setExpiration(new Date(System.currentTimeMillis() + 60000))
+            .signWith(SignatureAlgorithm.HS256, SECRET)
+            .compact();
+
+        assertThat(jwtService.extractUserId(legacyToken)).isEqualTo(7L);
+    }
+
+    @Test
+    void validateToken_TokenFromOtherSecret_ReturnsFalse() {
+        JwtService other = new JwtService("anotherSecretKeyForJwtTokenGenerationAndValidationInTests", 3600000, 86400000);
+
+        assertThat(jwtService.validateToken(other.generateAccessToken(1L))).isFalse();
+    }
+
+    @Test
+    void validateToken_ExpiredToken_Throws() {
+        JwtService shortLived = new JwtService(SECRET, 1, 86400000);
+        String token = shortLived.generateAccessToken(1L);
+
+        assertThatThrownBy(() -> jwtService.validateToken(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void constructor_BlankSecret_Throws() {
+        assertThatThrownBy(() -> new JwtService(" ", 3600000, 86400000))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void generateAccessToken_Rs256_CarriesKeyIdAndVerifiesWithPublicKey() throws Exception {
+        KeyPair keyPair = generateKeyPair("RSA");
+        JwtService rsaService = new JwtService(SECRET, 3600000, 86400000,
+            signingProperties(JwtSigningProperties.Algorithm.RS256, "k1", key("k1", keyPair, true)));
+
+        String token = rsaService.generateAccessToken(42L);
+
+        assertThat(rsaService.extractUserId(token)).isEqualTo(42L);
+        // Сторонний сервис проверяет токен только публичным ключом
+        assertThat(Jwts.parser().verifyWith(keyPair.getPublic()).build().parseSignedClaims(token).getHeader().getKeyId())
+            .isEqualTo("k1");
+    }
+
+    @Test
+    void parseClaims_RotatedKey_AcceptsTokensOfRetiredVerifyOnlyKey() throws Exception {
+        KeyPair oldPair = generateKeyPair("Ed25519");
+        KeyPair newPair = generateKeyPair("Ed25519");
+        JwtService beforeRotation = new JwtService(SECRET, 3600000, 86400000,
+            signingProperties(JwtSigningProperties.Algorithm.EdDSA, "old", key("old", oldPair, true)));
+        JwtService afterRotation = new JwtService(SECRET, 3600000, 86400000,
+            signingProperties(JwtSigningProperties.Algorithm.EdDSA, "new",
+                key("new", newPair, true), key("old", oldPair, false)));
+
+        String oldToken = beforeRotation.generateAccessToken(7L);
+
+        assertThat(afterRotation.extractUserId(oldToken)).isEqualTo(7L);
+        assertThat(afterRotation.parseClaims(afterRotation.generateAccessToken(8L)).getSubject()).isEqualTo("8");
+        assertThat(beforeRotation.validateToken(afterRotation.generateAccessToken(9L))).isFalse();
+    }
+
+    @Test
+    void parseClaims_AsymmetricMode_RejectsKidlessHmacTokenOutsideTransition() throws Exception {
+        String hmacToken = jwtService.generateAccessToken(5L);
+        JwtSigningProperties properties = signingProperties(
+            JwtSigningProperties.Algorithm.RS256, "k1", key("k1", generateKeyPair("RSA"), true));
+
+        assertThat(new JwtService(SECRET, 3600000, 86400000, properties).validateToken(hmacToken)).isFalse();
+
+        properties.setAcceptLegacyHmac(true);
+        properties.setAcceptLegacyHmacUntil(Instant.now().plusSeconds(3600));
+        assertThat(new JwtService(SECRET, 3600000, 86400000, properties).extractUserId(hmacToken)).isEqualTo(5L);
+
+        properties.setAcceptLegacyHmacUntil(Instant.now().minusSeconds(1));
+        assertThat(new JwtService(SECRET, 3600000, 86400000, properties).validateToken(hmacToken)).isFalse();
+    }
+
+    @Test
+    void constructor_LegacyHmacWithoutDeadline_Throws() throws Exception {
+        JwtSigningProperties properties = signingProperties(
+            JwtSigningProperties.Algorithm.RS256, "k1", key("k1", generateKeyPair("RSA"), true));
+        properties.setAcceptLegacyHmac(true);
+
+        assertThatThrownBy(() -> new JwtService(SECRET, 3600000, 86400000, properties))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void constructor_AsymmetricModeWithoutKeys_Throws() {
+        assertThatThrownBy(() -> new JwtService(SECRET, 3600000, 86400000,
+            signingProperties(JwtSigningProperties.Algorithm.EdDSA, null)))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("не настроены");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publicJwks_AsymmetricMode_PublishesOnlyPublicKeys() throws Exception {
+        JwtService rsaService = new JwtService(SECRET, 3600000, 86400000,
+            signingProperties(JwtSigningProperties.Algorithm.RS256, "k1", key("k1", generateKeyPair("RSA"), true)));
+
+        List<Map<String, Object>> keys = (List<Map<String, Object>>) rsaService.publicJwks().get("keys");
+
+        assertThat(keys).hasSize(1);
+        assertThat(keys.get(0)).containsEntry("kid", "k1").containsEntry("kty", "RSA").containsEntry("alg", "RS256")
+            .containsKeys("n", "e").doesNotContainKeys("d", "p", "q");
+        assertThat((List<?>) jwtService.publicJwks().get("keys")).isEmpty();
+    }
+
+    private static KeyPair generateKeyPair(String algorithm) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        if ("RSA".equals(algorithm)) {
+            generator.initialize(2048);
+        }
+        return generator.generateKeyPair();
+    }
+
+    private static JwtSigningProperties.Key key(String id, KeyPair keyPair, boolean withPrivateKey) {
+        JwtSigningProperties.Key key = new JwtSigningProperties.Key();
+        key.setId(id);
+        key.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+        if (withPrivateKey) {
+            key.setPrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+        }
+        return key;
+    }
+
+    private static JwtSigningProperties signingProperties(
+        JwtSigningProperties.Algorithm algorithm,
+        String activeKeyId,
+        JwtSigningProperties.Key... keys
+    ) {
+        JwtSigningProperties properties = new JwtSigningProperties();
+        properties.setAlgorithm(algorithm);
+        properties.setActiveKeyId(activeKeyId);
+        properties.setKeys(List.of(keys));
+        return properties;
+    }
+}
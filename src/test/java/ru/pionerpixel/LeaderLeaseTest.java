@@ -0,0 +1,141 @@
+package ru.pionerpixel;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.pionerpixel.config.SchedulerProperties;
+import ru.pionerpixel.service.InMemorySchedulerLock;
+import ru.pionerpixel.service.LeaderLease;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeaderLeaseTest {
+
+    private MutableClock clock;
+    private InMemorySchedulerLock schedulerLock;
+    private LeaderLease nodeA;
+    private LeaderLease nodeB;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        schedulerLock = new InMemorySchedulerLock(clock);
+        nodeA = new LeaderLease(schedulerLock, properties("node-a"));
+        nodeB = new LeaderLease(schedulerLock, properties("node-b"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.shutdown();
+        nodeB.shutdown();
+    }
+
+    @Test
+    void runIfLeader_OtherNodeHoldsLease_SkipsTask() {
+        AtomicInteger runs = new AtomicInteger();
+        AtomicBoolean skippedByB = new AtomicBoolean();
+
+        boolean ranOnA = nodeA.runIfLeader("interest-accrual", () -> {
+            runs.incrementAndGet();
+            skippedByB.set(!nodeB.runIfLeader("interest-accrual", runs::incrementAndGet));
+        });
+
+        assertThat(ranOnA).isTrue();
+        assertThat(skippedByB).isTrue();
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void runIfLeader_AfterRelease_OtherNodeAcquires() {
+        assertThat(nodeA.runIfLeader("interest-accrual", () -> { })).isTrue();
+        assertThat(nodeB.runIfLeader("interest-accrual", () -> { })).isTrue();
+    }
+
+    @Test
+    void runIfLeader_LeaseTakenOver_TaskSeesLeaseLost() {
+        SchedulerProperties fastHeartbeat = properties("node-c");
+        fastHeartbeat.getLock().setHeartbeatMs(10);
+        LeaderLease nodeC = new LeaderLease(schedulerLock, fastHeartbeat);
+        AtomicBoolean heldAtStart = new AtomicBoolean();
+        AtomicBoolean stoppedAfterTakeover = new AtomicBoolean();
+
+        try {
+            nodeC.runIfLeader("interest-accrual", leaseHeld -> {
+                heldAtStart.set(leaseHeld.getAsBoolean());
+                // Аренда истекла, пока узел не продлевал ее, и ее забрал другой узел
+                clock.advance(Duration.ofSeconds(61));
+                schedulerLock.tryAcquire("interest-accrual", "node-b", Duration.ofSeconds(60));
+                long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+                while (leaseHeld.getAsBoolean() && System.nanoTime() < deadline) {
+                    Thread.onSpinWait();
+                }
+                stoppedAfterTakeover.set(!leaseHeld.getAsBoolean());
+            });
+        } finally {
+            nodeC.shutdown();
+        }
+
+        assertThat(heldAtStart).isTrue();
+        assertThat(stoppedAfterTakeover).isTrue();
+        assertThat(schedulerLock.tryAcquire("interest-accrual", "node-a", Duration.ofSeconds(60))).isFalse();
+    }
+
+    @Test
+    void tryAcquire_ExpiredLease_IsTakenOver() {
+        assertThat(schedulerLock.tryAcquire("interest-accrual", "node-a", Duration.ofSeconds(60))).isTrue();
+        assertThat(schedulerLock.tryAcquire("interest-accrual", "node-b", Duration.ofSeconds(60))).isFalse();
+
+        clock.advance(Duration.ofSeconds(61));
+
+        assertThat(schedulerLock.tryAcquire("interest-accrual", "node-b", Duration.ofSeconds(60))).isTrue();
+        assertThat(schedulerLock.extend("interest-accrual", "node-a", Duration.ofSeconds(60))).isFalse();
+    }
+
+    @Test
+    void extend_ProlongsOwnLease() {
+        schedulerLock.tryAcquire("interest-accrual", "node-a", Duration.ofSeconds(60));
+        clock.advance(Duration.ofSeconds(50));
+
+        assertThat(schedulerLock.extend("interest-accrual", "node-a", Duration.ofSeconds(60))).isTrue();
+        clock.advance(Duration.ofSeconds(50));
+
+        assertThat(schedulerLock.tryAcquire("interest-accrual", "node-b", Duration.ofSeconds(60))).isFalse();
+    }
+
+    private static SchedulerProperties properties(String nodeId) {
+        SchedulerProperties properties = new SchedulerProperties();
+        properties.setNodeId(nodeId);
+        properties.getLock().setStore("in-memory");
+        return properties;
+    }
+
+    private static class MutableClock extends Clock {
+
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() { return ZoneOffset.UTC; }
+
+        @Override
+        public Clock withZone(ZoneId zone) { return this; }
+
+        @Override
+        public Instant instant() { return instant; }
+    }
+}
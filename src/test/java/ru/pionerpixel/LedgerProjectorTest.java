@@ -0,0 +1,125 @@
+package ru.pionerpixel;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.pionerpixel.config.TransferProperties;
+import ru.pionerpixel.entity.Account;
+import ru.pionerpixel.entity.LedgerEntry;
+import ru.pionerpixel.entity.LedgerEntryStatus;
+import ru.pionerpixel.entity.User;
+import ru.pionerpixel.repository.AccountRepository;
+import ru.pionerpixel.repository.LedgerEntryRepository;
+import ru.pionerpixel.service.LedgerProjector;
+import ru.pionerpixel.service.TransferMode;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerProjectorTest {
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransferProperties transferProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private LedgerProjector ledgerProjector;
+
+    @BeforeEach
+    void setUp() {
+        transferProperties = new TransferProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        ledgerProjector = new LedgerProjector(
+            ledgerEntryRepository, accountRepository, transactionManager, transferProperties, meterRegistry);
+    }
+
+    @Test
+    void projectBatch_FoldsEntriesIntoBalancesAndRejectsOverdraft() {
+        Account alice = account(1L, "100.00");
+        Account bob = account(2L, "10.00");
+        LedgerEntry first = entry(1L, 1L, 2L, "80.00");
+        LedgerEntry overdraft = entry(2L, 1L, 2L, "30.00");
+        LedgerEntry back = entry(3L, 2L, 1L, "50.00");
+        when(ledgerEntryRepository.lockPendingBatch(10)).thenReturn(List.of(first, overdraft, back));
+        when(accountRepository.findAllByUserIdsForUpdate(Set.of(1L, 2L)))
+            .thenReturn(List.of(alice, bob));
+
+        int processed = ledgerProjector.projectBatch(10);
+
+        assertThat(processed).isEqualTo(3);
+        assertThat(first.getStatus()).isEqualTo(LedgerEntryStatus.APPLIED);
+        assertThat(overdraft.getStatus()).isEqualTo(LedgerEntryStatus.REJECTED);
+        assertThat(back.getStatus()).isEqualTo(LedgerEntryStatus.APPLIED);
+        assertThat(alice.getBalance()).isEqualByComparingTo("70.00");
+        assertThat(bob.getBalance()).isEqualByComparingTo("40.00");
+        assertThat(meterRegistry.counter("ledger.entries.rejected").count()).isEqualTo(1.0);
+        verify(ledgerEntryRepository).markProcessedAt(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void project_NotLedgerMode_StillDrainsPendingEntries() {
+        transferProperties.setMode(TransferMode.ATOMIC);
+        transferProperties.getLedger().setProjectionBatchSize(10);
+        Account alice = account(1L, "100.00");
+        Account bob = account(2L, "10.00");
+        LedgerEntry left = entry(1L, 1L, 2L, "40.00");
+        when(ledgerEntryRepository.lockPendingBatch(10)).thenReturn(List.of(left));
+        when(accountRepository.findAllByUserIdsForUpdate(Set.of(1L, 2L))).thenReturn(List.of(alice, bob));
+
+        ledgerProjector.project();
+
+        assertThat(left.getStatus()).isEqualTo(LedgerEntryStatus.APPLIED);
+        assertThat(alice.getBalance()).isEqualByComparingTo("60.00");
+        assertThat(bob.getBalance()).isEqualByComparingTo("50.00");
+    }
+
+    @Test
+    void projectBatch_MissingRecipientAccount_RejectsEntry() {
+        Account alice = account(1L, "100.00");
+        LedgerEntry orphan = entry(1L, 1L, 3L, "10.00");
+        when(ledgerEntryRepository.lockPendingBatch(10)).thenReturn(List.of(orphan));
+        when(accountRepository.findAllByUserIdsForUpdate(Set.of(1L, 3L))).thenReturn(List.of(alice));
+
+        ledgerProjector.projectBatch(10);
+
+        assertThat(orphan.getStatus()).isEqualTo(LedgerEntryStatus.REJECTED);
+        assertThat(alice.getBalance()).isEqualByComparingTo("100.00");
+    }
+
+    private static Account account(Long userId, String balance) {
+        User user = new User();
+        user.setId(userId);
+        Account account = new Account();
+        account.setId(userId);
+        account.setUser(user);
+        account.setBalance(new BigDecimal(balance));
+        account.setInitialDeposit(new BigDecimal(balance));
+        return account;
+    }
+
+    private static LedgerEntry entry(Long id, Long senderId, Long recipientId, String amount) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setId(id);
+        entry.setSenderId(senderId);
+        entry.setRecipientId(recipientId);
+        entry.setAmount(new BigDecimal(amount));
+        entry.setStatus(LedgerEntryStatus.PENDING);
+        return entry;
+    }
+}
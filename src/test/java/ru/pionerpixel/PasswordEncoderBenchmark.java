@@ -0,0 +1,47 @@
+package ru.pionerpixel;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.pionerpixel.config.SecurityConfig;
+
+import java.util.concurrent.TimeUnit;
+
+// Время проверки пароля при разной стоимости BCrypt - по нему выбирается auth.password-hashing.bcrypt-strength.
+// Каждый шаг стоимости удваивает время; значение берется максимальным, при котором проверка
+// укладывается в бюджет задержки входа с учетом числа потоков пула хэширования.
+// Запуск: mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test,
+// затем java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main PasswordEncoderBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "securePassword123";
+
+    @Param({"10", "11", "12", "13"})
+    private int strength;
+
+    private PasswordEncoder passwordEncoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        passwordEncoder = SecurityConfig.delegatingPasswordEncoder(strength);
+        hash = passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches(PASSWORD, hash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PasswordEncoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package ru.pionerpixel;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.pionerpixel.config.PasswordHashingProperties;
+import ru.pionerpixel.config.SecurityConfig;
+import ru.pionerpixel.exception.AuthThrottledException;
+import ru.pionerpixel.service.PasswordHashingService;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingService service;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void matches_DelegatesToEncoderAndRecordsTime() {
+        service = new PasswordHashingService(new PlainEncoder(), properties(1, 1, 1000), meterRegistry);
+
+        assertThat(service.matches("secret", "secret")).isTrue();
+        assertThat(service.matches("secret", "other")).isFalse();
+        assertThat(meterRegistry.get("auth.password.hash.time").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void matches_PoolAndQueueFull_RejectsImmediately() throws Exception {
+        service = new PasswordHashingService(new BlockingEncoder(), properties(1, 1, 5000), meterRegistry);
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> service.matches("a", "a"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> service.matches("b", "b"));
+        awaitQueueDepth(1);
+
+        assertThatThrownBy(() -> service.matches("c", "c")).isInstanceOf(AuthThrottledException.class);
+        assertThat(meterRegistry.get("auth.password.hash.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void matches_WaitLongerThanTimeout_Rejects() throws Exception {
+        service = new PasswordHashingService(new BlockingEncoder(), properties(1, 1, 50), meterRegistry);
+
+        assertThatThrownBy(() -> service.matches("a", "a")).isInstanceOf(AuthThrottledException.class);
+    }
+
+    @Test
+    void needsRehash_LegacyOrWeakerHash_UpgradesToPrefixedCurrentStrength() {
+        service = new PasswordHashingService(SecurityConfig.delegatingPasswordEncoder(5), properties(1, 1, 5000), meterRegistry);
+        String legacyHash = new BCryptPasswordEncoder(4).encode("secret");
+
+        assertThat(service.matches("secret", legacyHash)).isTrue();
+        assertThat(service.needsRehash(legacyHash)).isTrue();
+
+        String upgraded = service.encode("secret");
+        assertThat(upgraded).startsWith("{bcrypt}$2a$05$");
+        assertThat(service.matches("secret", upgraded)).isTrue();
+        assertThat(service.needsRehash(upgraded)).isFalse();
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("auth.password.hash.queue").gauge().value() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static PasswordHashingProperties properties(int poolSize, int queueCapacity, long timeoutMs) {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setPoolSize(poolSize);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setTimeoutMs(timeoutMs);
+        return properties;
+    }
+
+    private static class PlainEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) { return rawPassword.toString(); }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+
+    // Имитирует долгий BCrypt: держит поток пула, пока тест не отпустит его
+    private class BlockingEncoder extends PlainEncoder {
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.matches(rawPassword, encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.pionerpixel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import ru.pionerpixel.config.RefreshTokenProperties;
+import ru.pionerpixel.security.RefreshTokens;
+import ru.pionerpixel.service.RedisRefreshTokenStore;
+import ru.pionerpixel.service.RefreshTokenStore;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RedisRefreshTokenStoreTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private RedisRefreshTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        RefreshTokenProperties properties = new RefreshTokenProperties();
+        properties.setTtlMs(86_400_000L);
+        store = new RedisRefreshTokenStore(redisTemplate, properties);
+    }
+
+    @Test
+    void rotate_LegacyPlainKey_PassesUserSessionAndRevocationKeys() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(hashedKey("old-raw"))).thenReturn(null);
+        when(valueOperations.get("refresh-token:old-raw")).thenReturn("5");
+        when(redisTemplate.execute(any(), eq(List.of(
+            "refresh-token:old-raw",
+            hashedKey("new-raw"),
+            "refresh-token:user:5",
+            "refresh-token:revoked-at:5"
+        )), eq("5"), eq("86400000"), eq("legacy"))).thenReturn("5:legacy");
+
+        Optional<RefreshTokenStore.RefreshSession> session =
+            store.rotate("old-raw", "new-raw", Duration.ofDays(1));
+
+        assertThat(session).contains(new RefreshTokenStore.RefreshSession(5L, "legacy"));
+    }
+
+    @Test
+    void rotate_UnknownToken_SkipsScript() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        assertThat(store.rotate("missing", "new-raw", Duration.ofDays(1))).isEmpty();
+        verify(redisTemplate, never()).execute(any(), any(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void revokeAll_RecordsRevocationForRefreshTtl() {
+        store.revokeAll(5L);
+
+        verify(redisTemplate).execute(any(),
+            eq(List.of("refresh-token:user:5", "refresh-token:revoked-at:5")), eq("86400000"));
+    }
+
+    private static String hashedKey(String token) {
+        return "refresh-token:sha256:" + RefreshTokens.hashHex(token);
+    }
+}
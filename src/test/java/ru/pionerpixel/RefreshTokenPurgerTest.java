@@ -0,0 +1,77 @@
+package ru.pionerpixel;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.pionerpixel.config.RefreshTokenProperties;
+import ru.pionerpixel.repository.RefreshTokenRepository;
+import ru.pionerpixel.service.RefreshTokenPurger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenPurgerTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RefreshTokenProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private RefreshTokenPurger purger;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RefreshTokenProperties();
+        properties.getPurge().setBatchSize(100);
+        properties.getPurge().setMaxBatchesPerRun(5);
+        meterRegistry = new SimpleMeterRegistry();
+        purger = new RefreshTokenPurger(refreshTokenRepository, transactionManager, properties, meterRegistry);
+    }
+
+    @Test
+    void purgeBatches_DeletesUntilBatchIsNotFull() {
+        when(refreshTokenRepository.deleteExpiredBatch(any(), eq(100))).thenReturn(100, 100, 37);
+
+        assertThat(purger.purgeBatches()).isEqualTo(237);
+        verify(refreshTokenRepository, times(3)).deleteExpiredBatch(any(), eq(100));
+        assertThat(meterRegistry.get("auth.refresh-tokens.purged").counter().count()).isEqualTo(237);
+    }
+
+    @Test
+    void purgeBatches_StopsAtMaxBatchesPerRun() {
+        when(refreshTokenRepository.deleteExpiredBatch(any(), eq(100))).thenReturn(100);
+
+        assertThat(purger.purgeBatches()).isEqualTo(500);
+        verify(refreshTokenRepository, times(5)).deleteExpiredBatch(any(), eq(100));
+    }
+
+    @Test
+    void purgeExpired_RecordsPurgeTime() {
+        when(refreshTokenRepository.deleteExpiredBatch(any(), eq(100))).thenReturn(0);
+
+        purger.purgeExpired();
+
+        assertThat(meterRegistry.get("auth.refresh-tokens.purge.time").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void backfillTokenHashes_ConvertsLegacyRowsInBatches() {
+        when(refreshTokenRepository.backfillTokenHashBatch(100)).thenReturn(100, 12);
+
+        assertThat(purger.backfillTokenHashes()).isEqualTo(112);
+        verify(refreshTokenRepository, times(2)).backfillTokenHashBatch(100);
+        assertThat(meterRegistry.get("auth.refresh-tokens.backfilled").counter().count()).isEqualTo(112);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.pionerpixel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.pionerpixel.config.RefreshTokenProperties;
+import ru.pionerpixel.exception.RefreshTokenException;
+import ru.pionerpixel.service.RefreshTokenService;
+import ru.pionerpixel.service.RefreshTokenStore;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenStore refreshTokenStore;
+
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        RefreshTokenProperties properties = new RefreshTokenProperties();
+        properties.setTtlMs(60000);
+        refreshTokenService = new RefreshTokenService(refreshTokenStore, properties);
+    }
+
+    @Test
+    void createRefreshToken_SavesTokenWithConfiguredTtl() {
+        String token = refreshTokenService.createRefreshToken(5L, "android-1");
+
+        verify(refreshTokenStore).save(token, 5L, "android-1", Duration.ofMinutes(1));
+    }
+
+    @Test
+    void rotate_KnownToken_ReturnsNewTokenForSameUser() {
+        ArgumentCaptor<String> newToken = ArgumentCaptor.forClass(String.class);
+        when(refreshTokenStore.rotate(eq("old"), newToken.capture(), eq(Duration.ofMinutes(1)))).thenReturn(Optional.of(new RefreshTokenStore.RefreshSession(5L, "web")));
+
+        RefreshTokenService.RotatedRefreshToken rotated = refreshTokenService.rotate("old");
+
+        assertThat(rotated.userId()).isEqualTo(5L);
+        assertThat(rotated.deviceId()).isEqualTo("web");
+        assertThat(rotated.token()).isEqualTo(newToken.getValue()).isNotEqualTo("old");
+    }
+
+    @Test
+    void rotate_UnknownOrUsedToken_Throws() {
+        when(refreshTokenStore.rotate(eq("used"), anyString(), any())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> refreshTokenService.rotate("used")).isInstanceOf(RefreshTokenException.class);
+    }
+}
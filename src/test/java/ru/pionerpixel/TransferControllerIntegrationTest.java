@@ -13,12 +13,14 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.pionerpixel.dto.transfer.BatchTransferRequestDto;
 import ru.pionerpixel.dto.transfer.TransferRequestDto;
 import ru.pionerpixel.entity.Account;
 import ru.pionerpixel.entity.EmailData;
 import ru.pionerpixel.entity.PhoneData;
 import ru.pionerpixel.entity.User;
 import ru.pionerpixel.repository.AccountRepository;
+import ru.pionerpixel.repository.LedgerEntryRepository;
 import ru.pionerpixel.repository.EmailDataRepository;
 import ru.pionerpixel.repository.PhoneDataRepository;
 import ru.pionerpixel.repository.UserRepository;
@@ -26,9 +28,11 @@ import ru.pionerpixel.service.JwtService;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -51,6 +55,8 @@ class TransferControllerIntegrationTest {
         registry.add("jwt.secret", () -> "testSecretKeyForJwtTokenGenerationAndValidationInTestsOnly");
         registry.add("jwt.access-token-expiration", () -> 3600000L);
         registry.add("jwt.refresh-token-expiration", () -> 86400000L);
+        registry.add("idempotency.store", () -> "in-memory");
+        registry.add("auth.refresh-token.store", () -> "jpa");
     }
 
     @Autowired
@@ -62,6 +68,9 @@ class TransferControllerIntegrationTest {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
     @Autowired
     private EmailDataRepository emailDataRepository;
 
@@ -84,6 +93,7 @@ class TransferControllerIntegrationTest {
     @BeforeEach
     void setUp() {
         // Clean up database
+        ledgerEntryRepository.deleteAll();
         accountRepository.deleteAll();
         emailDataRepository.deleteAll();
         phoneDataRepository.deleteAll();
@@ -243,4 +253,102 @@ class TransferControllerIntegrationTest {
             .andExpect(status().isBadRequest())
             .andExpect(jsonPath("$.errors.amount", notNullValue()));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void transferMoneyBatch_AppliesTransfersInOneRequest() throws Exception {
+        // Arrange
+        BatchTransferRequestDto request = new BatchTransferRequestDto();
+        request.setTransfers(List.of(
+            transferTo(recipientUser.getId(), "300.00"),
+            transferTo(recipientUser.getId(), "900.00"),
+            transferTo(recipientUser.getId(), "200.00")
+        ));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/users/transfers/batch")
+                .header("Authorization", senderToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.completed").value(2))
+            .andExpect(jsonPath("$.rejected").value(1))
+            .andExpect(jsonPath("$.results[1].status").value("INSUFFICIENT_FUNDS"));
+
+        assertThat(accountRepository.findById(senderAccount.getId()).orElseThrow().getBalance())
+            .isEqualByComparingTo("500.00");
+        assertThat(accountRepository.findById(recipientAccount.getId()).orElseThrow().getBalance())
+            .isEqualByComparingTo("1000.00");
+    }
+
+    @Test
+    void transferMoney_RepeatedIdempotencyKey_DebitsOnce() throws Exception {
+        // Arrange
+        TransferRequestDto request = transferTo(recipientUser.getId(), "100.00");
+        String body = objectMapper.writeValueAsString(request);
+
+        // Act & Assert
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/users/transfer")
+                    .header("Authorization", senderToken)
+                    .header("Idempotency-Key", "transfer-42")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body))
+                .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(post("/api/users/transfer")
+                .header("Authorization", senderToken)
+                .header("Idempotency-Key", "transfer-42")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transferTo(recipientUser.getId(), "200.00"))))
+            .andExpect(status().isConflict());
+
+        assertThat(accountRepository.findById(senderAccount.getId()).orElseThrow().getBalance())
+            .isEqualByComparingTo("900.00");
+        assertThat(accountRepository.findById(recipientAccount.getId()).orElseThrow().getBalance())
+            .isEqualByComparingTo("600.00");
+    }
+
+    @Test
+    void getTransferHistory_PagesThroughTransfersWithCursor() throws Exception {
+        // Arrange
+        for (String amount : List.of("10.00", "20.00", "30.00")) {
+            mockMvc.perform(post("/api/users/transfer")
+                    .header("Authorization", senderToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transferTo(recipientUser.getId(), amount))))
+                .andExpect(status().isOk());
+        }
+
+        // Act & Assert
+        String firstPage = mockMvc.perform(get("/api/users/" + recipientUser.getId() + "/transfers")
+                .header("Authorization", recipientToken)
+                .param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items", hasSize(2)))
+            .andExpect(jsonPath("$.items[0].amount").value(30.00))
+            .andExpect(jsonPath("$.items[0].direction").value("INCOMING"))
+            .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+            .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get("/api/users/" + recipientUser.getId() + "/transfers")
+                .header("Authorization", recipientToken)
+                .param("limit", "2")
+                .param("cursor", objectMapper.readTree(firstPage).get("nextCursor").asText()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items", hasSize(1)))
+            .andExpect(jsonPath("$.items[0].amount").value(10.00))
+            .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/users/" + recipientUser.getId() + "/transfers")
+                .header("Authorization", senderToken))
+            .andExpect(status().isForbidden());
+    }
+
+    private static TransferRequestDto transferTo(Long recipientId, String amount) {
+        TransferRequestDto transfer = new TransferRequestDto();
+        transfer.setRecipientId(recipientId);
+        transfer.setAmount(new BigDecimal(amount));
+        return transfer;
+    }
+}
@@ -0,0 +1,90 @@
+package ru.pionerpixel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.pionerpixel.dto.transfer.TransferHistoryItemDto;
+import ru.pionerpixel.dto.transfer.TransferHistoryPageDto;
+import ru.pionerpixel.entity.LedgerEntry;
+import ru.pionerpixel.entity.LedgerEntryStatus;
+import ru.pionerpixel.repository.LedgerEntryRepository;
+import ru.pionerpixel.service.TransferHistoryFilter;
+import ru.pionerpixel.service.TransferHistoryService;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransferHistoryServiceTest {
+
+    private static final TransferHistoryFilter NO_FILTER = new TransferHistoryFilter(null, null, null, null);
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    private TransferHistoryService transferHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        transferHistoryService = new TransferHistoryService(ledgerEntryRepository);
+    }
+
+    @Test
+    void getHistory_FullPage_ReturnsCursorOfLastItem() {
+        LedgerEntry newest = entry(3L, 1L, 2L, Instant.parse("2024-01-03T10:00:00Z"));
+        LedgerEntry middle = entry(2L, 2L, 1L, Instant.parse("2024-01-02T10:00:00.123456Z"));
+        LedgerEntry oldest = entry(1L, 1L, 2L, Instant.parse("2024-01-01T10:00:00Z"));
+        when(ledgerEntryRepository.findHistory(eq(1L), eq(NO_FILTER), isNull(), isNull(), eq(3)))
+            .thenReturn(List.of(newest, middle, oldest));
+
+        TransferHistoryPageDto page = transferHistoryService.getHistory(1L, NO_FILTER, null, 2);
+
+        assertThat(page.getItems()).extracting(TransferHistoryItemDto::getDirection)
+            .containsExactly(TransferHistoryItemDto.Direction.OUTGOING, TransferHistoryItemDto.Direction.INCOMING);
+        assertThat(page.getItems().get(1).getCounterpartyId()).isEqualTo(2L);
+        assertThat(page.getNextCursor()).isNotNull();
+
+        when(ledgerEntryRepository.findHistory(1L, NO_FILTER, middle.getCreatedAt(), 2L, 3))
+            .thenReturn(List.of(oldest));
+
+        TransferHistoryPageDto next = transferHistoryService.getHistory(1L, NO_FILTER, page.getNextCursor(), 2);
+
+        assertThat(next.getItems()).extracting(TransferHistoryItemDto::getId).containsExactly(1L);
+        assertThat(next.getNextCursor()).isNull();
+    }
+
+    @Test
+    void getHistory_InvalidCursor_ThrowsIllegalArgument() {
+        assertThatThrownBy(() -> transferHistoryService.getHistory(1L, NO_FILTER, "not-a-cursor", null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Неверный курсор истории переводов");
+    }
+
+    @Test
+    void getHistory_LimitOutOfRange_ThrowsIllegalArgument() {
+        assertThatThrownBy(() -> transferHistoryService.getHistory(1L, NO_FILTER, null, 500))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> transferHistoryService.getHistory(1L, NO_FILTER, null, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static LedgerEntry entry(Long id, Long senderId, Long recipientId, Instant createdAt) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setId(id);
+        entry.setSenderId(senderId);
+        entry.setRecipientId(recipientId);
+        entry.setAmount(new BigDecimal("10.00"));
+        entry.setStatus(LedgerEntryStatus.APPLIED);
+        entry.setCreatedAt(createdAt);
+        return entry;
+    }
+}
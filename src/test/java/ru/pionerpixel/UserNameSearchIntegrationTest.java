@@ -0,0 +1,184 @@
+package ru.pionerpixel;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.pionerpixel.dto.user.UserResponseDto;
+import ru.pionerpixel.dto.user.UserSearchCursorPageDto;
+import ru.pionerpixel.service.NameMatchMode;
+import ru.pionerpixel.service.SearchPagingMode;
+import ru.pionerpixel.service.UserSearchFilter;
+import ru.pionerpixel.service.UserService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+public class UserNameSearchIntegrationTest {
+
+    private static final int GENERATED_USERS = 1_000_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+        .withDatabaseName("testdb")
+        .withUsername("test")
+        .withPassword("test");
+
+    @DynamicPropertySource
+    static void setDatasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("idempotency.store", () -> "in-memory");
+        registry.add("auth.refresh-token.store", () -> "jpa");
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+            CapturingStatementInspector.class::getName);
+    }
+
+    @BeforeEach
+    void prepareUsers() {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+        if (existing != null && existing >= GENERATED_USERS) {
+            return;
+        }
+        // Случайные имена из hex-символов не совпадают с искомыми, поэтому индекс заметно выгоднее seq scan
+        jdbcTemplate.update("INSERT INTO users (name, date_of_birth, password) " +
+            "SELECT md5(g::text), DATE '1990-01-01', 'password' FROM generate_series(1, ?) g", GENERATED_USERS);
+        jdbcTemplate.update("INSERT INTO users (name, date_of_birth, password) VALUES " +
+            "('Анна Иванова', DATE '1991-02-03', 'password'), " +
+            "('АННА Петрова', DATE '1992-03-04', 'password'), " +
+            "('Петр Иванов', DATE '1993-04-05', 'password'), " +
+            "('100% Кэшбэк', DATE '1994-05-06', 'password')");
+        jdbcTemplate.execute("ANALYZE users");
+    }
+
+    @Test
+    void searchUsers_Prefix_IsCaseInsensitive() {
+        Slice<UserResponseDto> page = search("анна", NameMatchMode.PREFIX);
+
+        assertThat(page.getContent()).extracting(UserResponseDto::getName)
+            .containsExactlyInAnyOrder("Анна Иванова", "АННА Петрова");
+    }
+
+    @Test
+    void searchUsers_Contains_MatchesInfixAndEscapesWildcards() {
+        Slice<UserResponseDto> page = search("иванов", NameMatchMode.CONTAINS);
+        assertThat(page.getContent()).extracting(UserResponseDto::getName)
+            .containsExactlyInAnyOrder("Анна Иванова", "Петр Иванов");
+
+        Slice<UserResponseDto> percent = search("0% к", NameMatchMode.CONTAINS);
+        assertThat(percent.getContent()).extracting(UserResponseDto::getName).containsExactly("100% Кэшбэк");
+    }
+
+    @Test
+    void prefixSearch_UsesPatternOpsIndex() {
+        UserSearchFilter filter = new UserSearchFilter("анна", NameMatchMode.PREFIX, null, null, null);
+
+        assertThat(explainSearch(filter, filter.namePattern())).contains("idx_users_name_lower_prefix");
+    }
+
+    @Test
+    void containsSearch_UsesTrigramIndex() {
+        UserSearchFilter filter = new UserSearchFilter("иванов", NameMatchMode.CONTAINS, null, null, null);
+
+        assertThat(explainSearch(filter, filter.namePattern())).contains("idx_users_name_lower_trgm");
+    }
+
+    @Test
+    void searchUsers_EstimatedPaging_ReportsPlannerTotalWithoutCount() {
+        Slice<UserResponseDto> page = userService.searchUsers(
+            new UserSearchFilter(null, NameMatchMode.PREFIX, null, null, null),
+            SearchPagingMode.ESTIMATED,
+            PageRequest.of(0, 20));
+
+        // После ANALYZE оценка по всей таблице близка к реальному числу строк
+        assertThat(page).isInstanceOfSatisfying(Page.class, p ->
+            assertThat(p.getTotalElements()).isBetween(GENERATED_USERS / 2L, GENERATED_USERS * 2L));
+        assertThat(page.getContent()).hasSize(20);
+    }
+
+    @Test
+    void searchUsersByCursor_WalksNameOrderWithoutGaps() {
+        UserSearchFilter filter = new UserSearchFilter("анна", NameMatchMode.PREFIX, null, null, null);
+        Sort byName = Sort.by(Sort.Direction.DESC, "name");
+
+        UserSearchCursorPageDto first = userService.searchUsersByCursor(filter, byName, null, 1);
+        UserSearchCursorPageDto second = userService.searchUsersByCursor(filter, byName, first.getNextCursor(), 1);
+
+        assertThat(first.getItems()).extracting(UserResponseDto::getName).hasSize(1);
+        assertThat(second.getItems()).extracting(UserResponseDto::getName).hasSize(1);
+        assertThat(List.of(first.getItems().get(0).getName(), second.getItems().get(0).getName()))
+            .containsExactlyInAnyOrder("Анна Иванова", "АННА Петрова");
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void searchUsers_DateOfBirthOnly_IsIndexRangeScan() {
+        Slice<UserResponseDto> page = userService.searchUsers(
+            new UserSearchFilter(null, NameMatchMode.PREFIX, null, null, LocalDate.of(1990, 6, 1)),
+            SearchPagingMode.EXACT,
+            PageRequest.of(0, 20));
+        assertThat(page.getContent()).hasSize(4);
+
+        // Без фильтров по имени, email и телефону запрос содержит только условие на дату
+        UserSearchFilter filter = new UserSearchFilter(null, NameMatchMode.PREFIX, null, null, LocalDate.of(1990, 6, 1));
+        assertThat(explainSearch(filter, filter.dateOfBirth())).contains("idx_users_date_of_birth_id");
+    }
+
+    private Slice<UserResponseDto> search(String name, NameMatchMode nameMatch) {
+        return userService.searchUsers(
+            new UserSearchFilter(name, nameMatch, null, null, null), SearchPagingMode.EXACT, PageRequest.of(0, 20));
+    }
+
+    // EXPLAIN того SQL, который Hibernate сгенерировал для поиска. Параметры связываются в порядке
+    // запроса: значения фильтров, затем лимит страницы (в режиме SLICE на одну строку больше)
+    private String explainSearch(UserSearchFilter filter, Object... filterValues) {
+        CapturingStatementInspector.STATEMENTS.clear();
+        userService.searchUsers(filter, SearchPagingMode.SLICE, PageRequest.of(0, 20));
+        String sql = CapturingStatementInspector.STATEMENTS.get(0);
+
+        Object[] params = new Object[filterValues.length + 1];
+        System.arraycopy(filterValues, 0, params, 0, filterValues.length);
+        params[filterValues.length] = 21;
+        assertThat(sql.chars().filter(c -> c == '?').count())
+            .as("параметры запроса: %s", sql)
+            .isEqualTo(params.length);
+
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, params);
+        return String.join("\n", plan);
+    }
+
+    // Hibernate создает инспектор по имени класса, поэтому SQL собирается в статический список
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package ru.pionerpixel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import ru.pionerpixel.dto.user.UserResponseDto;
+import ru.pionerpixel.dto.user.UserSearchCursorPageDto;
+import ru.pionerpixel.entity.Account;
+import ru.pionerpixel.entity.EmailData;
+import ru.pionerpixel.entity.PhoneData;
+import ru.pionerpixel.entity.User;
+import ru.pionerpixel.exception.UserSearchException;
+import ru.pionerpixel.mapper.UserMapper;
+import ru.pionerpixel.repository.AccountRepository;
+import ru.pionerpixel.repository.EmailDataRepository;
+import ru.pionerpixel.repository.PhoneDataRepository;
+import ru.pionerpixel.repository.UserRepository;
+import ru.pionerpixel.repository.UserSearchRow;
+import ru.pionerpixel.service.NameMatchMode;
+import ru.pionerpixel.service.SearchPagingMode;
+import ru.pionerpixel.service.UserSearchCursor;
+import ru.pionerpixel.service.UserSearchFilter;
+import ru.pionerpixel.service.UserService;
+import ru.pionerpixel.service.UserSortKey;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private EmailDataRepository emailDataRepository;
+
+    @Mock
+    private PhoneDataRepository phoneDataRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private UserMapper userMapper;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(userRepository, emailDataRepository, phoneDataRepository, accountRepository, userMapper);
+    }
+
+    @Test
+    void searchUsers_LoadsPageCollectionsInBatches() {
+        PageRequest pageable = PageRequest.of(0, 2);
+        UserSearchFilter filter = filter("Ив", NameMatchMode.PREFIX);
+        when(userRepository.searchUsers(filter, pageable))
+            .thenReturn(new PageImpl<>(List.of(row(1L, "Иван"), row(2L, "Ивета")), pageable, 2));
+        when(emailDataRepository.findAllByUserIds(List.of(1L, 2L)))
+            .thenReturn(List.of(email(1L, "ivan@example.com"), email(1L, "ivan2@example.com")));
+        when(phoneDataRepository.findAllByUserIds(List.of(1L, 2L))).thenReturn(List.of(phone(2L, "79201234567")));
+        when(accountRepository.findAllByUserIds(List.of(1L, 2L)))
+            .thenReturn(List.of(account(1L, "100.00"), account(2L, "5.00")));
+
+        Slice<UserResponseDto> page = userService.searchUsers(filter, SearchPagingMode.EXACT, pageable);
+
+        assertThat(page).isInstanceOfSatisfying(Page.class, p -> assertThat(p.getTotalElements()).isEqualTo(2));
+        UserResponseDto ivan = page.getContent().get(0);
+        assertThat(ivan.getName()).isEqualTo("Иван");
+        assertThat(ivan.getEmails()).containsExactly("ivan@example.com", "ivan2@example.com");
+        assertThat(ivan.getPhones()).isEmpty();
+        assertThat(ivan.getBalance()).isEqualByComparingTo("100.00");
+        UserResponseDto iveta = page.getContent().get(1);
+        assertThat(iveta.getPhones()).containsExactly("79201234567");
+        assertThat(iveta.getBalance()).isEqualByComparingTo("5.00");
+    }
+
+    @Test
+    void searchUsers_EmptyPage_SkipsBatchQueries() {
+        PageRequest pageable = PageRequest.of(0, 20);
+        UserSearchFilter filter = filter(null, NameMatchMode.PREFIX);
+        when(userRepository.searchUsers(filter, pageable)).thenReturn(Page.empty(pageable));
+
+        assertThat(userService.searchUsers(filter, SearchPagingMode.EXACT, pageable)).isEmpty();
+        verify(emailDataRepository, never()).findAllByUserIds(any());
+        verify(phoneDataRepository, never()).findAllByUserIds(any());
+        verify(accountRepository, never()).findAllByUserIds(any());
+    }
+
+    @Test
+    void searchFilter_ContainsMode_EscapesLikeWildcards() {
+        assertThat(filter("50%_off!", NameMatchMode.CONTAINS).namePattern()).isEqualTo("%50!%!_off!!%");
+        assertThat(filter("Ив", NameMatchMode.PREFIX).namePattern()).isEqualTo("Ив%");
+        assertThat(filter("", NameMatchMode.PREFIX).namePattern()).isNull();
+    }
+
+    @Test
+    void searchUsers_SliceMode_SkipsCount() {
+        PageRequest pageable = PageRequest.of(0, 1);
+        UserSearchFilter filter = filter(null, NameMatchMode.PREFIX);
+        when(userRepository.searchUsersSlice(filter, pageable))
+            .thenReturn(new SliceImpl<>(List.of(row(1L, "Иван")), pageable, true));
+
+        Slice<UserResponseDto> slice = userService.searchUsers(filter, SearchPagingMode.SLICE, pageable);
+
+        assertThat(slice).isNotInstanceOf(Page.class);
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(slice.getContent()).extracting(UserResponseDto::getName).containsExactly("Иван");
+        verify(userRepository, never()).searchUsers(any(), any());
+        verify(userRepository, never()).estimateSearchCount(any());
+    }
+
+    @Test
+    void searchUsers_EstimatedMode_UsesPlannerEstimateBeforeLastPage() {
+        PageRequest pageable = PageRequest.of(1, 1);
+        UserSearchFilter filter = filter(null, NameMatchMode.PREFIX);
+        when(userRepository.searchUsersSlice(filter, pageable))
+            .thenReturn(new SliceImpl<>(List.of(row(2L, "Ивета")), pageable, true));
+        when(userRepository.estimateSearchCount(filter)).thenReturn(1000L);
+
+        Slice<UserResponseDto> slice = userService.searchUsers(filter, SearchPagingMode.ESTIMATED, pageable);
+
+        assertThat(slice).isInstanceOfSatisfying(Page.class, p -> assertThat(p.getTotalElements()).isEqualTo(1000));
+    }
+
+    @Test
+    void searchUsers_EstimatedModeLastPage_ReturnsExactTotal() {
+        PageRequest pageable = PageRequest.of(1, 2);
+        UserSearchFilter filter = filter(null, NameMatchMode.PREFIX);
+        when(userRepository.searchUsersSlice(filter, pageable))
+            .thenReturn(new SliceImpl<>(List.of(row(3L, "Илья")), pageable, false));
+
+        Slice<UserResponseDto> slice = userService.searchUsers(filter, SearchPagingMode.ESTIMATED, pageable);
+
+        assertThat(slice).isInstanceOfSatisfying(Page.class, p -> assertThat(p.getTotalElements()).isEqualTo(3));
+        verify(userRepository, never()).estimateSearchCount(any());
+    }
+
+    @Test
+    void searchUsersByCursor_NextPageStartsAfterCursor() {
+        UserSearchFilter filter = filter(null, NameMatchMode.PREFIX);
+        Sort byName = Sort.by(Sort.Direction.DESC, "name");
+        when(userRepository.searchUsersAfter(filter, UserSortKey.NAME, Sort.Direction.DESC, null, 2))
+            .thenReturn(List.of(row(2L, "Ян|ов"), row(1L, "Иван")));
+
+        UserSearchCursorPageDto first = userService.searchUsersByCursor(filter, byName, null, 1);
+
+        assertThat(first.getItems()).extracting(UserResponseDto::getName).containsExactly("Ян|ов");
+        assertThat(first.getNextCursor()).isNotNull();
+
+        UserSearchCursor expectedAfter = new UserSearchCursor(UserSortKey.NAME, Sort.Direction.DESC, 2L, "Ян|ов");
+        when(userRepository.searchUsersAfter(filter, UserSortKey.NAME, Sort.Direction.DESC, expectedAfter, 2))
+            .thenReturn(List.of(row(1L, "Иван")));
+
+        UserSearchCursorPageDto second = userService.searchUsersByCursor(filter, byName, first.getNextCursor(), 1);
+
+        assertThat(second.getItems()).extracting(UserResponseDto::getName).containsExactly("Иван");
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void searchUsersByCursor_UnsupportedSort_Throws() {
+        assertThatThrownBy(() -> userService.searchUsersByCursor(
+            filter(null, NameMatchMode.PREFIX), Sort.by("password"), null, null))
+            .isInstanceOf(UserSearchException.class);
+    }
+
+    @Test
+    void searchUsersByCursor_CursorForOtherSort_Throws() {
+        String byIdCursor = new UserSearchCursor(UserSortKey.ID, Sort.Direction.ASC, 5L, null).encode();
+
+        assertThatThrownBy(() -> userService.searchUsersByCursor(
+            filter(null, NameMatchMode.PREFIX), Sort.by("dateOfBirth"), byIdCursor, null))
+            .isInstanceOf(UserSearchException.class);
+        assertThatThrownBy(() -> userService.searchUsersByCursor(
+            filter(null, NameMatchMode.PREFIX), Sort.unsorted(), "не-курсор", null))
+            .isInstanceOf(UserSearchException.class);
+    }
+
+    private static UserSearchFilter filter(String name, NameMatchMode nameMatch) {
+        return new UserSearchFilter(name, nameMatch, null, null, null);
+    }
+
+    private static UserSearchRow row(Long id, String name) {
+        return new UserSearchRow() {
+            @Override
+            public Long getId() { return id; }
+
+            @Override
+            public String getName() { return name; }
+
+            @Override
+            public LocalDate getDateOfBirth() { return LocalDate.of(1990, 1, 1); }
+        };
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static EmailData email(Long userId, String value) {
+        EmailData email = new EmailData();
+        email.setUser(user(userId));
+        email.setEmail(value);
+        return email;
+    }
+
+    private static PhoneData phone(Long userId, String value) {
+        PhoneData phone = new PhoneData();
+        phone.setUser(user(userId));
+        phone.setPhone(value);
+        return phone;
+    }
+
+    private static Account account(Long userId, String balance) {
+        Account account = new Account();
+        account.setUser(user(userId));
+        account.setBalance(new BigDecimal(balance));
+        return account;
+    }
+}
@@ -0,0 +1,86 @@
+package ru.pionerpixel;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.pionerpixel.security.VerifiedTokenCache;
+import ru.pionerpixel.service.JwtService;
+
+import java.time.Instant;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VerifiedTokenCacheTest {
+
+    @Mock
+    private JwtService jwtService;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    void setUp() {
+        verifiedTokenCache = new VerifiedTokenCache(jwtService, 100);
+    }
+
+    @Test
+    void verify_SameToken_ParsedOnce() {
+        Claims claims = claims("1", new Date(System.currentTimeMillis() + 60000));
+        when(jwtService.parseClaims("token-1")).thenReturn(claims);
+
+        assertThat(verifiedTokenCache.verify("token-1").getSubject()).isEqualTo("1");
+        assertThat(verifiedTokenCache.verify("token-1").getSubject()).isEqualTo("1");
+
+        verify(jwtService, times(1)).parseClaims("token-1");
+    }
+
+    @Test
+    void verify_ExpiredToken_IsNotCached() {
+        when(jwtService.parseClaims("expired"))
+            .thenThrow(new ExpiredJwtException(null, null, "Токен просрочен"));
+
+        assertThatThrownBy(() -> verifiedTokenCache.verify("expired")).isInstanceOf(ExpiredJwtException.class);
+        assertThatThrownBy(() -> verifiedTokenCache.verify("expired")).isInstanceOf(ExpiredJwtException.class);
+
+        verify(jwtService, times(2)).parseClaims("expired");
+    }
+
+    @Test
+    void verify_EntryEvictedAtTokenExpiration() throws InterruptedException {
+        when(jwtService.parseClaims("short-lived"))
+            .thenReturn(claims("2", new Date(System.currentTimeMillis() + 50)));
+
+        verifiedTokenCache.verify("short-lived");
+        Thread.sleep(100);
+        verifiedTokenCache.verify("short-lived");
+
+        verify(jwtService, times(2)).parseClaims("short-lived");
+    }
+
+    @Test
+    void verify_LegacyHmacWindow_EntryEvictedAtWindowEnd() throws InterruptedException {
+        when(jwtService.getLegacyHmacUntil()).thenReturn(Instant.now().plusMillis(50));
+        when(jwtService.parseClaims("legacy"))
+            .thenReturn(claims("3", new Date(System.currentTimeMillis() + 60000)));
+
+        verifiedTokenCache.verify("legacy");
+        Thread.sleep(100);
+        verifiedTokenCache.verify("legacy");
+
+        verify(jwtService, times(2)).parseClaims("legacy");
+    }
+
+    private static Claims claims(String subject, Date expiration) {
+        return Jwts.claims().subject(subject).expiration(expiration).build();
+    }
+}